@@ -1,6 +1,7 @@
 plugins {
     java
     application
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 java {
@@ -22,15 +23,41 @@ application {
     mainClass.set("de.tum.cit.aet.codestats.DtoViolationExtractor")
 }
 
+// Keep violations.json up to date while editing Artemis: ./gradlew run --args=--watch
 tasks.named<JavaExec>("run") {
     val artemisSourceDir = project.findProperty("artemisSource")?.toString()
         ?: "${project.rootDir}/../../artemis/src/main/java"
 
     systemProperty("artemis.source", artemisSourceDir)
     systemProperty("output.file", "${project.rootDir}/violations.json")
+    project.findProperty("extractorThreads")?.let { systemProperty("extractor.threads", it.toString()) }
+    project.findProperty("lowMemory")?.let { systemProperty("extractor.lowMemory", it.toString()) }
+    project.findProperty("shards")?.let { systemProperty("extractor.shards", it.toString()) }
+    project.findProperty("gate")?.let { systemProperty("extractor.gate", it.toString()) }
+    systemProperty("extractor.thresholds", "true")
+    systemProperty("extractor.cache", "${project.rootDir}/.cache/facts.json.gz")
 
     doFirst {
         println("Artemis source: $artemisSourceDir")
         println("Output file: ${project.rootDir}/violations.json")
     }
 }
+
+// Query the violation history over HTTP: ./gradlew serve [-PhistoryDir=...] [-Pport=8080]
+tasks.register<JavaExec>("serve") {
+    val historyDir = project.findProperty("historyDir")?.toString()
+        ?: "${project.rootDir}/../../data/server/dtoViolationsHistory"
+
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("de.tum.cit.aet.codestats.HistoryServer")
+    args(historyDir, project.findProperty("port")?.toString() ?: "8080")
+}
+
+// Benchmarks live in src/jmh and generate their own corpus, so they need no Artemis checkout:
+//   ./gradlew jmh [-Pjmh.includes=parse]
+jmh {
+    jmhVersion.set("1.37")
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    project.findProperty("jmh.includes")?.let { includes.add(it.toString()) }
+}
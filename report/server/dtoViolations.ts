@@ -10,7 +10,7 @@ import * as path from "path";
 import * as fs from "fs";
 import yargs from "yargs";
 import { hideBin } from "yargs/helpers";
-import { CommitInfo, DtoViolationsData, DtoModuleViolations } from "../types";
+import { CommitInfo, DtoViolationsData } from "../types";
 
 // Parse command line arguments
 const argv = yargs(hideBin(process.argv))
@@ -24,8 +24,8 @@ const argv = yargs(hideBin(process.argv))
     description: 'Generate reports for a relative time period (e.g., "24h", "7d", "1m", "1y")',
     type: 'string',
   })
-  .option('thresholds', {
-    description: 'Use threshold parsing mode (counts only, no details)',
+  .option('gate', {
+    description: 'Exit non-zero if a module exceeds its ArchUnit threshold (current state only)',
     type: 'boolean',
     default: false
   })
@@ -42,6 +42,9 @@ const argv = yargs(hideBin(process.argv))
 const ARTEMIS_REPO_DIR = path.join(process.cwd(), "artemis");
 const EXTRACTOR_DIR = path.join(process.cwd(), "report", "server");
 const OUTPUT_DIR = path.join(process.cwd(), "data", "server", "dtoViolations");
+// Shared by daily and backfill runs; the extractor keeps it in commit date order whatever order commits arrive in
+const HISTORY_DIR = path.join(process.cwd(), "data", "server", "dtoViolationsHistory");
+const ROLLUP_FILE = path.join(process.cwd(), "data", "server", "dtoViolationsRollup.jsonl");
 
 // Required JARs for the static analyzer
 const JAVAPARSER_VERSION = "3.26.2";
@@ -134,47 +137,6 @@ function getCommitsFromStartDate(startDate: Date): CommitInfo[] {
   }
 }
 
-/**
- * Checkout to a specific commit
- */
-function checkoutToCommit(commitHash: string): boolean {
-  try {
-    const status = execSync('git status --porcelain', { cwd: ARTEMIS_REPO_DIR }).toString();
-    if (status.trim()) {
-      execSync('git reset --hard', { cwd: ARTEMIS_REPO_DIR });
-      execSync('git clean -fd', { cwd: ARTEMIS_REPO_DIR });
-    }
-    execSync(`git checkout ${commitHash}`, { cwd: ARTEMIS_REPO_DIR });
-    return true;
-  } catch (error) {
-    console.error(`Error checking out to commit ${commitHash}:`, error);
-    return false;
-  }
-}
-
-/**
- * Clean up after historical analysis
- */
-function cleanupAfterAnalysis(): boolean {
-  try {
-    const currentBranch = execSync('git rev-parse --abbrev-ref HEAD', { cwd: ARTEMIS_REPO_DIR }).toString().trim();
-
-    if (currentBranch === 'HEAD') {
-      const branches = execSync('git branch', { cwd: ARTEMIS_REPO_DIR }).toString().split('\n');
-      for (const branch of ['develop', 'main', 'master']) {
-        if (branches.some(b => b.includes(branch))) {
-          execSync(`git checkout ${branch}`, { cwd: ARTEMIS_REPO_DIR });
-          break;
-        }
-      }
-    }
-    return true;
-  } catch (error) {
-    console.error('Error cleaning up after analysis:', error);
-    return false;
-  }
-}
-
 /**
  * Get the current commit info from Artemis
  */
@@ -244,7 +206,11 @@ function ensureDependencies(): boolean {
 function compileExtractor(): boolean {
   const libDir = path.join(EXTRACTOR_DIR, "lib");
   const outDir = path.join(EXTRACTOR_DIR, "out");
-  const sourceFile = path.join(EXTRACTOR_DIR, "src/main/java/de/tum/cit/aet/codestats/DtoViolationExtractor.java");
+  const sourceDir = path.join(EXTRACTOR_DIR, "src/main/java/de/tum/cit/aet/codestats");
+  const sourceFiles = fs.readdirSync(sourceDir)
+    .filter(name => name.endsWith(".java"))
+    .map(name => `"${path.join(sourceDir, name)}"`)
+    .join(" ");
 
   if (!fs.existsSync(outDir)) {
     fs.mkdirSync(outDir, { recursive: true });
@@ -252,7 +218,7 @@ function compileExtractor(): boolean {
 
   try {
     console.log("Compiling static analyzer...");
-    execSync(`javac -cp "${libDir}/*" -d "${outDir}" "${sourceFile}"`, {
+    execSync(`javac -cp "${libDir}/*" -d "${outDir}" ${sourceFiles}`, {
       cwd: EXTRACTOR_DIR,
       stdio: 'inherit'
     });
@@ -265,19 +231,31 @@ function compileExtractor(): boolean {
 
 /**
  * Run the JavaParser-based static analyzer
+ *
+ * @param commitHash Optional commit to analyze straight from the git object store;
+ *                   defaults to the current working tree of the artemis submodule
  */
-function runStaticAnalyzer(): DtoViolationsData | null {
+function runStaticAnalyzer(commitHash?: string, gate = false): { violations: DtoViolationsData; withinThresholds: boolean } | null {
   const libDir = path.join(EXTRACTOR_DIR, "lib");
   const outDir = path.join(EXTRACTOR_DIR, "out");
   const outputFile = path.join(EXTRACTOR_DIR, "violations.json");
+  const factCacheFile = path.join(EXTRACTOR_DIR, ".cache", "facts.json.gz");
   const artemisSourceDir = path.join(ARTEMIS_REPO_DIR, "src/main/java");
+  let withinThresholds = true;
 
+  fs.rmSync(outputFile, { force: true });
   try {
     console.log("Running static analysis...");
     execSync(
       `java -cp "${outDir}:${libDir}/*" ` +
       `-Dartemis.source="${artemisSourceDir}" ` +
       `-Doutput.file="${outputFile}" ` +
+      `-Dextractor.cache="${factCacheFile}" ` +
+      `-Dhistory.dir="${HISTORY_DIR}" ` +
+      `-Drollup.file="${ROLLUP_FILE}" ` +
+      `-Dextractor.thresholds=true ` +
+      (gate ? `-Dextractor.gate=true ` : '') +
+      (commitHash ? `-Dartemis.commit="${commitHash}" ` : '') +
       `de.tum.cit.aet.codestats.DtoViolationExtractor`,
       {
         cwd: EXTRACTOR_DIR,
@@ -285,98 +263,74 @@ function runStaticAnalyzer(): DtoViolationsData | null {
         timeout: 300000
       }
     );
-
-    if (fs.existsSync(outputFile)) {
-      const data = JSON.parse(fs.readFileSync(outputFile, 'utf-8'));
-      return data as DtoViolationsData;
-    } else {
-      console.error("Extractor output file not found");
+  } catch (error) {
+    // When gating, the extractor writes the report and then fails if a module exceeds its threshold
+    if (!gate || !fs.existsSync(outputFile)) {
+      console.error("Failed to run static analyzer:", error);
       return null;
     }
-  } catch (error) {
-    console.error("Failed to run static analyzer:", error);
+    withinThresholds = false;
+  }
+
+  if (!fs.existsSync(outputFile)) {
+    console.error("Extractor output file not found");
     return null;
   }
+  const violations = JSON.parse(fs.readFileSync(outputFile, 'utf-8')) as DtoViolationsData;
+  return { violations, withinThresholds };
 }
 
 /**
- * Alternative: Parse threshold values from architecture test source files
- * This is faster but only gets threshold counts (no details)
+ * Run the static analyzer once for a whole list of commits (oldest first) in a single JVM.
+ * Commits are read from the git object store; returns the extracted data per commit hash.
+ * Only every `sampleInterval`-th commit, the last one, and the commits needed to pin down
+ * where the result changed are analyzed; commits without relevant changes reuse the previous
+ * result, so commits between unchanged samples have no output.
  */
-export function parseViolationThresholds(): DtoViolationsData | null {
-  console.log("Parsing violation thresholds from test source files...");
-
-  const testBaseDir = path.join(ARTEMIS_REPO_DIR, "src/test/java/de/tum/cit/aet/artemis");
-  const modules: Record<string, DtoModuleViolations> = {};
-
-  let totalEntityReturn = 0;
-  let totalEntityInput = 0;
-  let totalDtoEntityField = 0;
-
-  function findTestFiles(dir: string): string[] {
-    const files: string[] = [];
-    if (!fs.existsSync(dir)) return files;
-
-    const entries = fs.readdirSync(dir, { withFileTypes: true });
-    for (const entry of entries) {
-      const fullPath = path.join(dir, entry.name);
-      if (entry.isDirectory()) {
-        files.push(...findTestFiles(fullPath));
-      } else if (entry.name.endsWith('EntityUsageArchitectureTest.java')) {
-        files.push(fullPath);
-      }
-    }
-    return files;
-  }
-
-  const testFiles = findTestFiles(testBaseDir);
-  console.log(`Found ${testFiles.length} EntityUsageArchitectureTest files`);
-
-  for (const testFile of testFiles) {
-    try {
-      const content = fs.readFileSync(testFile, 'utf-8');
-
-      const classNameMatch = content.match(/class\s+(\w+)EntityUsageArchitectureTest/);
-      if (!classNameMatch) continue;
+function runStaticAnalyzerBatch(commitHashes: string[], sampleInterval: number): Map<string, DtoViolationsData> {
+  const libDir = path.join(EXTRACTOR_DIR, "lib");
+  const outDir = path.join(EXTRACTOR_DIR, "out");
+  const batchDir = path.join(EXTRACTOR_DIR, "batch");
+  const commitListFile = path.join(batchDir, "commits.txt");
+  const factCacheFile = path.join(EXTRACTOR_DIR, ".cache", "facts.json.gz");
+  const artemisSourceDir = path.join(ARTEMIS_REPO_DIR, "src/main/java");
+  const results = new Map<string, DtoViolationsData>();
 
-      const moduleName = classNameMatch[1].toLowerCase();
+  fs.rmSync(batchDir, { recursive: true, force: true });
+  fs.mkdirSync(batchDir, { recursive: true });
+  fs.writeFileSync(commitListFile, commitHashes.join("\n") + "\n");
 
-      if (moduleName === 'abstractmodule' || moduleName === 'incoming') {
-        continue;
+  try {
+    console.log(`Running static analysis for ${commitHashes.length} commits in one JVM...`);
+    execSync(
+      `java -cp "${outDir}:${libDir}/*" ` +
+      `-Dartemis.source="${artemisSourceDir}" ` +
+      `-Dartemis.commits="${commitListFile}" ` +
+      `-Dartemis.sampleInterval=${sampleInterval} ` +
+      `-Dextractor.thresholds=true ` +
+      `-Doutput.dir="${batchDir}" ` +
+      `-Dextractor.cache="${factCacheFile}" ` +
+      `-Dhistory.dir="${HISTORY_DIR}" ` +
+      `-Drollup.file="${ROLLUP_FILE}" ` +
+      `de.tum.cit.aet.codestats.DtoViolationExtractor`,
+      {
+        cwd: EXTRACTOR_DIR,
+        stdio: 'inherit',
+        timeout: 300000 * Math.max(1, commitHashes.length)
       }
-
-      const returnMatch = content.match(/getMaxEntityReturnViolations\s*\(\s*\)\s*\{[^}]*return\s+(\d+)/);
-      const inputMatch = content.match(/getMaxEntityInputViolations\s*\(\s*\)\s*\{[^}]*return\s+(\d+)/);
-      const dtoFieldMatch = content.match(/getMaxDtoEntityFieldViolations\s*\(\s*\)\s*\{[^}]*return\s+(\d+)/);
-
-      const entityReturnViolations = returnMatch ? parseInt(returnMatch[1]) : 0;
-      const entityInputViolations = inputMatch ? parseInt(inputMatch[1]) : 0;
-      const dtoEntityFieldViolations = dtoFieldMatch ? parseInt(dtoFieldMatch[1]) : 0;
-
-      modules[moduleName] = {
-        entityReturnViolations,
-        entityInputViolations,
-        dtoEntityFieldViolations
-      };
-
-      totalEntityReturn += entityReturnViolations;
-      totalEntityInput += entityInputViolations;
-      totalDtoEntityField += dtoEntityFieldViolations;
-
-      console.log(`  ${moduleName}: return=${entityReturnViolations}, input=${entityInputViolations}, dtoField=${dtoEntityFieldViolations}`);
-    } catch (error) {
-      console.error(`Error parsing ${testFile}:`, error);
-    }
+    );
+  } catch (error) {
+    // Some commits may have failed; collect whatever was written
+    console.error("Static analyzer batch reported failures:", error);
   }
 
-  return {
-    modules,
-    totals: {
-      entityReturnViolations: totalEntityReturn,
-      entityInputViolations: totalEntityInput,
-      dtoEntityFieldViolations: totalDtoEntityField
+  for (const commitHash of commitHashes) {
+    const outputFile = path.join(batchDir, `${commitHash}.json`);
+    if (fs.existsSync(outputFile)) {
+      results.set(commitHash, JSON.parse(fs.readFileSync(outputFile, 'utf-8')) as DtoViolationsData);
     }
-  };
+  }
+  return results;
 }
 
 /**
@@ -412,14 +366,14 @@ function writeReport(data: DtoViolationsData, commitInfo: CommitInfo, dataSource
 }
 
 /**
- * Main function to generate DTO violations report
+ * Main function to generate DTO violations report. Module counts come from static analysis;
+ * the ArchUnit thresholds of each module are read in the same extractor run.
  *
- * @param mode 'static' for full JavaParser analysis (recommended),
- *             'thresholds' for quick threshold parsing only
+ * @param gate Exit non-zero (after writing the report) if a module exceeds its threshold
  * @param providedCommitInfo Optional commit info for historical reports
  */
 export async function generateDtoViolationsReport(
-  mode: 'static' | 'thresholds' = 'static',
+  gate = false,
   providedCommitInfo?: CommitInfo
 ): Promise<string | null> {
   console.log("=== DTO Violations Report Generator ===\n");
@@ -430,38 +384,39 @@ export async function generateDtoViolationsReport(
   console.log(`Author: ${commitInfo.commitAuthor}`);
   console.log(`Message: ${commitInfo.commitMessage}\n`);
 
-  let violations: DtoViolationsData | null;
-  let dataSource: string;
+  console.log("Mode: Static source code analysis (full details)\n");
 
-  if (mode === 'static') {
-    console.log("Mode: Static source code analysis (full details)\n");
-
-    // Ensure dependencies are downloaded
-    if (!ensureDependencies()) {
-      console.error("Aborting due to dependency download failure");
-      return null;
-    }
-
-    // Compile the extractor
-    if (!compileExtractor()) {
-      console.error("Aborting due to compilation failure");
-      return null;
-    }
+  // Ensure dependencies are downloaded
+  if (!ensureDependencies()) {
+    console.error("Aborting due to dependency download failure");
+    return null;
+  }
 
-    // Run static analysis
-    violations = runStaticAnalyzer();
-    dataSource = "Static source code analysis with JavaParser (full coverage)";
-  } else {
-    console.log("Mode: Threshold parsing (counts only)\n");
-    violations = parseViolationThresholds();
-    dataSource = "Parsed from ArchUnit test thresholds (counts only, no details)";
+  // Compile the extractor
+  if (!compileExtractor()) {
+    console.error("Aborting due to compilation failure");
+    return null;
   }
 
-  if (!violations) {
+  // Run static analysis (historical commits are read from git without checkout)
+  const result = runStaticAnalyzer(providedCommitInfo?.commitHash, gate);
+  if (!result) {
     console.error("Failed to extract violations");
     return null;
   }
 
+  const filePath = summarizeAndWriteReport(result.violations, commitInfo, "Static source code analysis with JavaParser (full coverage)");
+  if (!result.withinThresholds) {
+    console.error("Violations exceed the ArchUnit thresholds, see the extractor output above");
+    process.exitCode = 1;
+  }
+  return filePath;
+}
+
+/**
+ * Print the summary for one commit's violations and write its report file
+ */
+function summarizeAndWriteReport(violations: DtoViolationsData, commitInfo: CommitInfo, dataSource: string): string {
   console.log("\n=== Summary ===");
   console.log(`Entity Return Violations: ${violations.totals.entityReturnViolations}`);
   console.log(`Entity Input Violations: ${violations.totals.entityInputViolations}`);
@@ -479,7 +434,7 @@ export async function generateDtoViolationsReport(
  * Run historical analysis for DTO violations
  */
 async function runHistoricalAnalysis(): Promise<void> {
-  const mode = argv.thresholds ? 'thresholds' : 'static';
+  const gate = argv.gate as boolean;
   const interval = argv.interval as number;
 
   // Determine start date from arguments
@@ -502,13 +457,18 @@ async function runHistoricalAnalysis(): Promise<void> {
 
   // If no historical analysis requested, just run for current state
   if (!startDate) {
-    const result = await generateDtoViolationsReport(mode);
+    const result = await generateDtoViolationsReport(gate);
     if (!result) {
       process.exit(1);
     }
     return;
   }
 
+  if (gate) {
+    console.error('--gate checks the current state and cannot be combined with --start or --relative');
+    process.exit(1);
+  }
+
   // Get commits for historical analysis
   const commits = getCommitsFromStartDate(startDate);
   if (commits.length === 0) {
@@ -518,42 +478,27 @@ async function runHistoricalAnalysis(): Promise<void> {
 
   console.log(`Found ${commits.length} commits to analyze with interval ${interval}`);
 
-  // Filter by interval
-  const filteredCommits = commits.filter((_, i) => i % interval === 0);
-  console.log(`Will analyze ${filteredCommits.length} commits\n`);
+  // One JVM for all commits: parsers and the fact cache stay warm between commits. The analyzer
+  // samples by itself and bisects between samples, so it gets every commit, oldest first.
+  if (!ensureDependencies() || !compileExtractor()) {
+    console.error("Aborting due to extractor setup failure");
+    process.exit(1);
+  }
 
+  const oldestFirst = [...commits].reverse();
+  const results = runStaticAnalyzerBatch(oldestFirst.map(commit => commit.commitHash), interval);
   let successCount = 0;
-  let failCount = 0;
-
-  try {
-    for (let i = 0; i < filteredCommits.length; i++) {
-      const commitInfo = filteredCommits[i];
-      console.log(`\n=== Commit ${i + 1}/${filteredCommits.length} ===`);
-      console.log(`Hash: ${commitInfo.commitHash.substring(0, 8)}`);
-      console.log(`Date: ${commitInfo.commitDate.toISOString()}`);
-      console.log(`Message: ${commitInfo.commitMessage}`);
-
-      if (!checkoutToCommit(commitInfo.commitHash)) {
-        console.error(`Failed to checkout commit ${commitInfo.commitHash}`);
-        failCount++;
-        continue;
-      }
-
-      const result = await generateDtoViolationsReport(mode, commitInfo);
-      if (result) {
-        successCount++;
-      } else {
-        failCount++;
-      }
+  for (const commitInfo of oldestFirst) {
+    const violations = results.get(commitInfo.commitHash);
+    if (!violations) {
+      continue;
     }
-  } finally {
-    console.log('\nCleaning up...');
-    cleanupAfterAnalysis();
+    summarizeAndWriteReport(violations, commitInfo, "Static source code analysis with JavaParser (full coverage)");
+    successCount++;
   }
 
   console.log(`\n=== Historical Analysis Complete ===`);
-  console.log(`Successful: ${successCount}`);
-  console.log(`Failed: ${failCount}`);
+  console.log(`Wrote reports for ${successCount} of ${commits.length} commits`);
 }
 
 // Run if called directly
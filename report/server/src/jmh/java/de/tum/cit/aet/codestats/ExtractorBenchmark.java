@@ -0,0 +1,176 @@
+package de.tum.cit.aet.codestats;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.tum.cit.aet.codestats.SourceTree.SourceFile;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Per-phase throughput of the extractor on a generated {@link SyntheticCorpus}.
+ * <p>
+ * The per-file phases (marker scan, parse, entity discovery, rule analysis)
+ * process one file per operation, cycling through the corpus, so the reported ops/s are files/s
+ * and the {@code gc.alloc.rate.norm} of the {@code gc} profiler is bytes allocated per file.
+ * {@link #typeGraph} and {@link #writeOutput} process the complete corpus per operation; their
+ * {@code files} counter reports files/s, and their allocation per file is
+ * {@code gc.alloc.rate.norm} divided by the corpus size printed during setup.
+ * <p>
+ * Run with {@code ./gradlew jmh}, optionally narrowed with {@code -Pjmh.includes=<regex>}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ExtractorBenchmark {
+
+    @Param({ "15", "60" })
+    public int modules;
+
+    private Path corpusDir;
+    private Path outputFile;
+    private String[] paths;
+    private byte[][] contents;
+    private FileSummary[] summaries;
+    private DtoViolationExtractor extractor;
+    private ViolationReport report;
+    private final ViolationReportWriter writer = new ViolationReportWriter(true, false);
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        corpusDir = Files.createTempDirectory("extractor-bench");
+        outputFile = corpusDir.resolve("violations.json");
+        Path sourceRoot = corpusDir.resolve("src/main/java");
+        new SyntheticCorpus(modules, 42).generate(sourceRoot);
+
+        List<SourceFile> files = new DirectorySourceTree(sourceRoot).files();
+        paths = new String[files.size()];
+        contents = new byte[files.size()][];
+        for (int i = 0; i < files.size(); i++) {
+            paths[i] = files.get(i).relativePath();
+            contents[i] = Files.readAllBytes(sourceRoot.resolve(paths[i]));
+        }
+
+        // Inputs of the later phases are the outputs of the earlier ones, computed once up front
+        SourceSummarizer summarizer = new SourceSummarizer();
+        summaries = new FileSummary[files.size()];
+        for (int i = 0; i < files.size(); i++) {
+            summaries[i] = summarizer.summarize(contents[i], paths[i]).orElseThrow();
+        }
+        extractor = new DtoViolationExtractor(1);
+        for (FileSummary summary : summaries) {
+            extractor.indexTypes(summary);
+        }
+        extractor.linkTypes(List.of(summaries));
+
+        ViolationCollector violations = new ViolationCollector();
+        for (FileSummary summary : summaries) {
+            extractor.analyzeFile(summary, violations);
+        }
+        violations.sort();
+        Set<String> modules = new TreeSet<>(violations.moduleReturnViolations.keySet());
+        modules.addAll(violations.moduleInputViolations.keySet());
+        modules.addAll(violations.moduleFieldViolations.keySet());
+        report = new ViolationReport(List.copyOf(modules), violations);
+
+        long bytes = Arrays.stream(contents).mapToLong(c -> c.length).sum();
+        System.out.println("\nCorpus: " + files.size() + " files, " + bytes + " bytes, "
+            + report.write(outputFile, writer).total() + " violations");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> walk = Files.walk(corpusDir)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /** Cursor over the corpus, one per benchmark thread. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int advance(int size) {
+            int index = next;
+            next = index + 1 == size ? 0 : index + 1;
+            return index;
+        }
+    }
+
+    /** Parser instance and violation sink, one per benchmark thread like the extractor's workers. */
+    @State(Scope.Thread)
+    public static class Worker {
+        final SourceSummarizer summarizer = new SourceSummarizer();
+        final SourceSummarizer fullSummarizer = new SourceSummarizer(false);
+        ViolationCollector collector = new ViolationCollector();
+
+        ViolationCollector collector(int index) {
+            // Start over once per pass so the collector stays the size of one corpus
+            if (index == 0) collector = new ViolationCollector();
+            return collector;
+        }
+    }
+
+    /** Files/s of the whole-corpus benchmarks, reported next to their ops/s. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class FileCounter {
+        public long files;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            files = 0;
+        }
+    }
+
+    @Benchmark
+    public Optional<FileSummary> parse(Cursor cursor, Worker worker) {
+        int i = cursor.advance(contents.length);
+        return worker.summarizer.summarize(contents[i], paths[i]);
+    }
+
+    /** Parse with method bodies, as before skeleton parsing; compare against {@link #parse}. */
+    @Benchmark
+    public Optional<FileSummary> fullParse(Cursor cursor, Worker worker) {
+        int i = cursor.advance(contents.length);
+        return worker.fullSummarizer.summarize(contents[i], paths[i]);
+    }
+
+    @Benchmark
+    public int markerScan(Cursor cursor) {
+        return SourceMarkers.scan(contents[cursor.advance(contents.length)]);
+    }
+
+    @Benchmark
+    public void entityDiscovery(Cursor cursor) {
+        extractor.indexTypes(summaries[cursor.advance(summaries.length)]);
+    }
+
+    @Benchmark
+    public void typeGraph(FileCounter counter) {
+        counter.files += summaries.length;
+        extractor.linkTypes(List.of(summaries));
+    }
+
+    /** All rules in one walk over a file; per-rule shares are in the extractor's metrics sidecar. */
+    @Benchmark
+    public void analysis(Cursor cursor, Worker worker, Blackhole blackhole) {
+        int i = cursor.advance(summaries.length);
+        ViolationCollector collector = worker.collector(i);
+        extractor.analyzeFile(summaries[i], collector);
+        blackhole.consume(collector.controllersFound);
+    }
+
+    @Benchmark
+    public ViolationReportWriter.Totals writeOutput(FileCounter counter) throws IOException {
+        counter.files += summaries.length;
+        return report.write(outputFile, writer);
+    }
+}
@@ -0,0 +1,388 @@
+package de.tum.cit.aet.codestats;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Generates an Artemis-shaped source tree so the benchmarks run offline and on a fixed input.
+ * <p>
+ * Every module gets a {@code domain} package with one {@code @MappedSuperclass} and several
+ * {@code @Entity} subclasses, a {@code web} package of {@code @RestController}s whose endpoints
+ * return and accept entities and DTOs, a {@code dto} package mixing DTO classes and records (some
+ * of which leak entities), and a {@code service} package with realistic method bodies. The output
+ * only depends on the parameters and the seed.
+ * <p>
+ * Usage: {@code SyntheticCorpus <outputDir> [modules] [seed]}
+ */
+public class SyntheticCorpus {
+
+    private static final String BASE_PACKAGE = "de.tum.cit.aet.artemis";
+    private static final List<String> MODULE_NAMES = List.of(
+        "assessment", "atlas", "communication", "core", "exam", "exercise", "fileupload", "iris",
+        "lecture", "modeling", "plagiarism", "programming", "quiz", "text", "tutorialgroup");
+
+    private final int modules;
+    private final int entitiesPerModule;
+    private final int controllersPerModule;
+    private final int dtosPerModule;
+    private final int servicesPerModule;
+    private final long seed;
+
+    public SyntheticCorpus(int modules, long seed) {
+        this(modules, 8, 3, 8, 4, seed);
+    }
+
+    public SyntheticCorpus(int modules, int entitiesPerModule, int controllersPerModule,
+                           int dtosPerModule, int servicesPerModule, long seed) {
+        this.modules = modules;
+        this.entitiesPerModule = Math.max(2, entitiesPerModule);
+        this.controllersPerModule = controllersPerModule;
+        this.dtosPerModule = dtosPerModule;
+        this.servicesPerModule = servicesPerModule;
+        this.seed = seed;
+    }
+
+    /** Number of files {@link #generate} writes. */
+    public int fileCount() {
+        return modules * (entitiesPerModule + controllersPerModule + dtosPerModule + servicesPerModule);
+    }
+
+    /** Writes the corpus below {@code root}, which becomes the source root ({@code src/main/java}). */
+    public void generate(Path root) throws IOException {
+        Random random = new Random(seed);
+        List<String> moduleNames = new ArrayList<>();
+        for (int m = 0; m < modules; m++) {
+            // Beyond the known modules, add sub-packages of them so packages still map to a module
+            String name = MODULE_NAMES.get(m % MODULE_NAMES.size());
+            moduleNames.add(m < MODULE_NAMES.size() ? name : name + ".part" + (m / MODULE_NAMES.size() + 1));
+        }
+
+        for (String module : moduleNames) {
+            String other = moduleNames.get(random.nextInt(moduleNames.size()));
+            writeDomain(root, module);
+            writeDtos(root, module, other, random);
+            writeControllers(root, module, random);
+            writeServices(root, module, random);
+        }
+    }
+
+    private void writeDomain(Path root, String module) throws IOException {
+        String pkg = BASE_PACKAGE + "." + module + ".domain";
+        String base = entityName(module, 0);
+        write(root, pkg, base, """
+            package %1$s;
+
+            import jakarta.persistence.*;
+
+            @MappedSuperclass
+            public abstract class %2$s {
+
+                @Id
+                @GeneratedValue(strategy = GenerationType.IDENTITY)
+                private Long id;
+
+                public Long getId() {
+                    return id;
+                }
+
+                public void setId(Long id) {
+                    this.id = id;
+                }
+            }
+            """.formatted(pkg, base));
+
+        for (int i = 1; i < entitiesPerModule; i++) {
+            String name = entityName(module, i);
+            String related = entityName(module, i == 1 ? entitiesPerModule - 1 : i - 1);
+            write(root, pkg, name, """
+                package %1$s;
+
+                import java.time.ZonedDateTime;
+                import java.util.HashSet;
+                import java.util.Set;
+
+                import jakarta.persistence.*;
+
+                @Entity
+                @Table(name = "%4$s")
+                public class %2$s extends %5$s {
+
+                    @Column(name = "title")
+                    private String title;
+
+                    @Column(name = "release_date")
+                    private ZonedDateTime releaseDate;
+
+                    @ManyToOne
+                    private %3$s parent;
+
+                    @OneToMany(mappedBy = "parent", cascade = CascadeType.ALL, orphanRemoval = true)
+                    private Set<%3$s> children = new HashSet<>();
+
+                    public String getTitle() {
+                        return title;
+                    }
+
+                    public void setTitle(String title) {
+                        this.title = title;
+                    }
+
+                    public boolean isReleased() {
+                        return releaseDate == null || releaseDate.isBefore(ZonedDateTime.now());
+                    }
+
+                    public Set<%3$s> getChildren() {
+                        return children;
+                    }
+                }
+                """.formatted(pkg, name, related, module.replace('.', '_') + "_" + i, entityName(module, 0)));
+        }
+    }
+
+    private void writeDtos(Path root, String module, String other, Random random) throws IOException {
+        String pkg = BASE_PACKAGE + "." + module + ".dto";
+        for (int i = 0; i < dtosPerModule; i++) {
+            String name = dtoName(module, i);
+            String entity = entityName(module, 1 + random.nextInt(entitiesPerModule - 1));
+            boolean leaks = random.nextInt(3) == 0;
+            if (i % 2 == 0) {
+                write(root, pkg, name, """
+                    package %1$s;
+
+                    import java.util.List;
+
+                    import com.fasterxml.jackson.annotation.JsonInclude;
+
+                    import %3$s.%4$s.domain.%5$s;
+                    import %3$s.%6$s.domain.*;
+
+                    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+                    public record %2$s(Long id, String title, %7$s, List<Long> childIds) {
+
+                        public static %2$s of(%5$s source) {
+                            List<Long> childIds = source.getChildren().stream().map(child -> child.getId()).toList();
+                            return new %2$s(source.getId(), source.getTitle(), %8$s, childIds);
+                        }
+                    }
+                    """.formatted(pkg, name, BASE_PACKAGE, module, entity, other,
+                        leaks ? entity + " source" : "boolean released",
+                        leaks ? "source" : "source.isReleased()"));
+            } else {
+                write(root, pkg, name, """
+                    package %1$s;
+
+                    import java.util.ArrayList;
+                    import java.util.List;
+                    import java.util.Map;
+
+                    import %3$s.%4$s.domain.%5$s;
+
+                    public class %2$s {
+
+                        private Long id;
+
+                        private String title;
+
+                        private %6$s;
+
+                        private Map<String, List<Long>> groups;
+
+                        public %2$s(%5$s source) {
+                            this.id = source.getId();
+                            this.title = source.getTitle();
+                            List<Long> ids = new ArrayList<>();
+                            for (var child : source.getChildren()) {
+                                if (child.isReleased()) {
+                                    ids.add(child.getId());
+                                }
+                            }
+                            this.groups = Map.of("released", ids);
+                        }
+
+                        public Long getId() {
+                            return id;
+                        }
+                    }
+                    """.formatted(pkg, name, BASE_PACKAGE, module, entity,
+                        leaks ? "List<" + entity + "> items" : "int itemCount"));
+            }
+        }
+    }
+
+    private void writeControllers(Path root, String module, Random random) throws IOException {
+        String pkg = BASE_PACKAGE + "." + module + ".web";
+        for (int i = 0; i < controllersPerModule; i++) {
+            String name = capitalize(module) + "Resource" + i;
+            String entity = entityName(module, 1 + random.nextInt(entitiesPerModule - 1));
+            int dtoIndex = random.nextInt(Math.max(1, dtosPerModule));
+            String dto = dtoName(module, dtoIndex);
+            String toDto = dtoIndex % 2 == 0 ? dto + ".of(item)" : "new " + dto + "(item)";
+            String resource = module + "-items-" + i;
+
+            StringBuilder endpoints = new StringBuilder();
+            endpoints.append("""
+
+                    @GetMapping("%1$s")
+                    @EnforceAtLeastStudent
+                    public ResponseEntity<List<%2$s>> getAll(@RequestParam(defaultValue = "0") int page) {
+                        log.debug("REST request to get page {}", page);
+                        List<%2$s> items = repository.findAll().stream().skip(page * 20L).limit(20).toList();
+                        return ResponseEntity.ok(items);
+                    }
+
+                    @GetMapping("%1$s/{id}")
+                    public ResponseEntity<%3$s> get(@PathVariable long id) {
+                        %2$s item = repository.findByIdElseThrow(id);
+                        return ResponseEntity.ok(%4$s);
+                    }
+
+                    @PostMapping("%1$s")
+                    public ResponseEntity<%2$s> create(@RequestBody %2$s item) throws URISyntaxException {
+                        if (item.getId() != null) {
+                            throw new IllegalArgumentException("A new item cannot already have an ID");
+                        }
+                        %2$s result = repository.save(item);
+                        return ResponseEntity.created(new URI("/api/%1$s/" + result.getId())).body(result);
+                    }
+                """.formatted(resource, entity, dto, toDto));
+
+            if (random.nextBoolean()) {
+                endpoints.append("""
+
+                        @PutMapping(value = "%1$s/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+                        public ResponseEntity<Void> update(@PathVariable long id, @RequestPart %2$s item,
+                                                           @RequestPart(required = false) List<MultipartFile> files) {
+                            repository.save(item);
+                            return ResponseEntity.ok().build();
+                        }
+
+                        @DeleteMapping("%1$s/{id}")
+                        public ResponseEntity<Void> delete(@PathVariable long id) {
+                            repository.deleteById(id);
+                            return ResponseEntity.noContent().build();
+                        }
+                    """.formatted(resource, entity));
+            }
+
+            write(root, pkg, name, """
+                package %1$s;
+
+                import java.net.URI;
+                import java.net.URISyntaxException;
+                import java.util.List;
+
+                import org.slf4j.Logger;
+                import org.slf4j.LoggerFactory;
+                import org.springframework.http.MediaType;
+                import org.springframework.http.ResponseEntity;
+                import org.springframework.web.bind.annotation.*;
+                import org.springframework.web.multipart.MultipartFile;
+
+                import %3$s.core.security.annotations.EnforceAtLeastStudent;
+                import %3$s.%4$s.domain.%5$s;
+                import %3$s.%4$s.dto.*;
+                import %3$s.%4$s.repository.%5$sRepository;
+
+                @RestController
+                @RequestMapping("api/%4$s/")
+                public class %2$s {
+
+                    private static final Logger log = LoggerFactory.getLogger(%2$s.class);
+
+                    private final %5$sRepository repository;
+
+                    public %2$s(%5$sRepository repository) {
+                        this.repository = repository;
+                    }
+                %6$s}
+                """.formatted(pkg, name, BASE_PACKAGE, module, entity, endpoints));
+        }
+    }
+
+    private void writeServices(Path root, String module, Random random) throws IOException {
+        String pkg = BASE_PACKAGE + "." + module + ".service";
+        for (int i = 0; i < servicesPerModule; i++) {
+            String name = capitalize(module) + "Service" + i;
+            String entity = entityName(module, 1 + random.nextInt(entitiesPerModule - 1));
+            StringBuilder methods = new StringBuilder();
+            int methodCount = 4 + random.nextInt(6);
+            for (int j = 0; j < methodCount; j++) {
+                methods.append("""
+
+                        public Map<String, Long> summarize%2$d(Collection<%1$s> items, int threshold) {
+                            Map<String, Long> counts = new TreeMap<>();
+                            for (%1$s item : items) {
+                                String key = item.getTitle() == null ? "untitled" : item.getTitle().toLowerCase();
+                                switch (key.length() %% 3) {
+                                    case 0 -> counts.merge(key, 1L, Long::sum);
+                                    case 1 -> counts.merge(key + "-" + threshold, 2L, Long::sum);
+                                    default -> {
+                                        if (item.isReleased() && item.getChildren().size() > threshold) {
+                                            counts.put(key, (long) item.getChildren().size());
+                                        }
+                                    }
+                                }
+                            }
+                            return counts.entrySet().stream()
+                                .filter(entry -> entry.getValue() >= threshold)
+                                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, TreeMap::new));
+                        }
+                    """.formatted(entity, j));
+            }
+
+            write(root, pkg, name, """
+                package %1$s;
+
+                import java.util.Collection;
+                import java.util.Map;
+                import java.util.TreeMap;
+                import java.util.stream.Collectors;
+
+                import org.springframework.stereotype.Service;
+
+                import %3$s.%4$s.domain.%5$s;
+
+                @Service
+                public class %2$s {
+                %6$s}
+                """.formatted(pkg, name, BASE_PACKAGE, module, entity, methods));
+        }
+    }
+
+    private static String entityName(String module, int index) {
+        return index == 0 ? capitalize(module) + "BaseEntity" : capitalize(module) + "Item" + index;
+    }
+
+    private static String dtoName(String module, int index) {
+        return index % 2 == 0 ? capitalize(module) + "ItemDTO" + index : capitalize(module) + "ItemSummaryDto" + index;
+    }
+
+    /** {@code quiz} becomes {@code Quiz}, sub-package {@code quiz.part2} becomes {@code QuizPart2}. */
+    private static String capitalize(String name) {
+        StringBuilder capitalized = new StringBuilder();
+        for (String segment : name.split("\\.")) {
+            capitalized.append(Character.toUpperCase(segment.charAt(0))).append(segment.substring(1));
+        }
+        return capitalized.toString();
+    }
+
+    private static void write(Path root, String pkg, String typeName, String content) throws IOException {
+        Path dir = root.resolve(pkg.replace('.', '/'));
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve(typeName + ".java"), content);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: SyntheticCorpus <outputDir> [modules] [seed]");
+            System.exit(1);
+        }
+        int modules = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+        SyntheticCorpus corpus = new SyntheticCorpus(modules, seed);
+        corpus.generate(Path.of(args[0]));
+        System.out.println("Generated " + corpus.fileCount() + " files in " + modules + " modules under " + args[0]);
+    }
+}
@@ -0,0 +1,152 @@
+package de.tum.cit.aet.codestats;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.IntegerLiteralExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.stmt.ReturnStmt;
+
+import de.tum.cit.aet.codestats.SourceTree.SourceFile;
+import de.tum.cit.aet.codestats.ViolationReportWriter.Totals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.*;
+
+/**
+ * The violation thresholds Artemis enforces per module with ArchUnit: the values returned by
+ * {@code getMaxEntityReturnViolations()}, {@code getMaxEntityInputViolations()} and
+ * {@code getMaxDtoEntityFieldViolations()} in each module's {@code *EntityUsageArchitectureTest}.
+ * <p>
+ * Only test files with that name suffix are read, from the same tree (directory or commit) as the
+ * analyzed sources. A method may return a literal or a constant of its class; a missing method
+ * means a threshold of 0. Modules without such a test have no thresholds and are never gated.
+ */
+final class ArchitectureThresholds {
+
+    /** Where the tests are, relative to the analyzed source root. */
+    static final String TEST_SOURCE = "../../test/java";
+    static final String TEST_SUFFIX = "EntityUsageArchitectureTest.java";
+
+    private final Map<String, Totals> thresholds;
+
+    private ArchitectureThresholds(Map<String, Totals> thresholds) {
+        this.thresholds = Collections.unmodifiableMap(thresholds);
+    }
+
+    /** The thresholds by module, in module order. */
+    Map<String, Totals> byModule() {
+        return thresholds;
+    }
+
+    Totals totals() {
+        int ret = 0, inp = 0, fld = 0;
+        for (Totals threshold : thresholds.values()) {
+            ret += threshold.entityReturnViolations();
+            inp += threshold.entityInputViolations();
+            fld += threshold.dtoEntityFieldViolations();
+        }
+        return new Totals(ret, inp, fld);
+    }
+
+    /** Reads the thresholds from the tests belonging to {@code sourceTree}; empty if there are none. */
+    static ArchitectureThresholds read(SourceTree sourceTree) throws IOException {
+        SourceTree testTree = sourceTree.sibling(TEST_SOURCE);
+        List<SourceFile> testFiles;
+        try {
+            testFiles = testTree.files().stream().filter(file -> file.relativePath().endsWith(TEST_SUFFIX)).toList();
+        } catch (NoSuchFileException e) {
+            testFiles = List.of();
+        }
+
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21);
+        JavaParser parser = new JavaParser(config);
+
+        Map<String, Totals> thresholds = new TreeMap<>();
+        for (SourceFile file : testFiles) {
+            ParseResult<CompilationUnit> result = parser.parse(new ByteArrayInputStream(testTree.read(file)));
+            if (result.getResult().isEmpty()) {
+                System.err.println("WARNING: Cannot parse " + file.relativePath() + ", its thresholds are ignored");
+                continue;
+            }
+
+            CompilationUnit unit = result.getResult().get();
+            String packageName = unit.getPackageDeclaration().map(p -> p.getNameAsString()).orElse("");
+            String module = DtoViolationExtractor.moduleOf(packageName);
+            for (ClassOrInterfaceDeclaration test : unit.findAll(ClassOrInterfaceDeclaration.class)) {
+                // Abstract bases (e.g. AbstractModuleEntityUsageArchitectureTest) belong to no module
+                if (test.isAbstract() || test.isInterface() || module.equals("other")) continue;
+                if (!(test.getNameAsString() + ".java").endsWith(TEST_SUFFIX)) continue;
+
+                thresholds.put(module, new Totals(
+                    threshold(test, "getMaxEntityReturnViolations"),
+                    threshold(test, "getMaxEntityInputViolations"),
+                    threshold(test, "getMaxDtoEntityFieldViolations")));
+            }
+        }
+        return new ArchitectureThresholds(thresholds);
+    }
+
+    private static int threshold(ClassOrInterfaceDeclaration test, String method) {
+        for (MethodDeclaration declaration : test.getMethodsByName(method)) {
+            if (declaration.getParameters().isNonEmpty()) continue;
+            for (ReturnStmt ret : declaration.findAll(ReturnStmt.class)) {
+                Integer value = ret.getExpression().map(e -> intValue(test, e)).orElse(null);
+                if (value != null) return value;
+            }
+        }
+        return 0;
+    }
+
+    /** The value of a literal or of a constant field of {@code test}, or null. */
+    private static Integer intValue(ClassOrInterfaceDeclaration test, Expression expression) {
+        if (expression instanceof IntegerLiteralExpr literal) return literal.asNumber().intValue();
+        if (!(expression instanceof NameExpr name)) return null;
+
+        for (FieldDeclaration field : test.getFields()) {
+            for (VariableDeclarator variable : field.getVariables()) {
+                if (!variable.getNameAsString().equals(name.getNameAsString())) continue;
+                Expression initializer = variable.getInitializer().orElse(null);
+                return initializer instanceof IntegerLiteralExpr literal ? literal.asNumber().intValue() : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Describes every module whose direct violations in {@code violations} exceed its thresholds,
+     * one line per exceeded count; empty if all modules are within their thresholds. Transitive
+     * violations are not compared, since ArchUnit only sees direct usage.
+     */
+    List<String> exceeded(ViolationCollector violations) {
+        List<String> exceeded = new ArrayList<>();
+        thresholds.forEach((module, threshold) -> {
+            check(exceeded, module, "entity return", violations.moduleReturnViolations.get(module), threshold.entityReturnViolations());
+            check(exceeded, module, "entity input", violations.moduleInputViolations.get(module), threshold.entityInputViolations());
+            check(exceeded, module, "DTO entity field", violations.moduleFieldViolations.get(module), threshold.dtoEntityFieldViolations());
+        });
+        return exceeded;
+    }
+
+    private static void check(List<String> exceeded, String module, String kind, List<? extends Violation> found,
+                              int threshold) {
+        int count = 0;
+        if (found != null) {
+            for (Violation violation : found) {
+                if (violation.isDirect()) count++;
+            }
+        }
+        if (count > threshold) {
+            exceeded.add(module + ": " + count + " " + kind + " violations, threshold " + threshold);
+        }
+    }
+}
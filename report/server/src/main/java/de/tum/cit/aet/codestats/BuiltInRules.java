@@ -0,0 +1,223 @@
+package de.tum.cit.aet.codestats;
+
+import de.tum.cit.aet.codestats.FileSummary.*;
+import de.tum.cit.aet.codestats.Rule.Finding;
+import de.tum.cit.aet.codestats.Rule.NodeKind;
+
+import java.util.*;
+
+/**
+ * The rules shipped with the extractor. The three DTO checks fill the module sections the
+ * dashboard reads ({@code entityReturnDetails} etc.); the others report findings in their own
+ * sections.
+ */
+final class BuiltInRules {
+
+    private BuiltInRules() {
+    }
+
+    static List<Rule> all() {
+        return List.of(new EntityReturn(), new EntityInput(), new DtoEntityField(),
+            new ControllerRepositoryAccess(), new TransactionalEndpoint(), new PagedEntityReturn());
+    }
+
+    private static boolean isController(TypeSummary type) {
+        return type.kind() == TypeKind.CLASS && (type.hasAnnotation("RestController") || type.hasAnnotation("Controller"));
+    }
+
+    /** REST endpoints returning an entity, directly, inside a generic wrapper or through a DTO. */
+    static final class EntityReturn implements Rule {
+        @Override
+        public String id() {
+            return "entity-return";
+        }
+
+        @Override
+        public String description() {
+            return "REST endpoints returning entities";
+        }
+
+        @Override
+        public Set<NodeKind> nodeKinds() {
+            return EnumSet.of(NodeKind.TYPE, NodeKind.ENDPOINT);
+        }
+
+        @Override
+        public void visitType(RuleContext context, TypeSummary type) {
+            if (isController(type)) context.violations().controllersFound++;
+        }
+
+        @Override
+        public void visitEndpoint(RuleContext context, TypeSummary controller, EndpointSummary endpoint) {
+            TypeRef returnType = endpoint.returnType();
+            context.entitiesIn(returnType).forEach((entityClass, path) ->
+                context.violations().addReturnViolation(context.module(), new Violation.EntityReturn(controller.name(),
+                    endpoint.name(), context.endpoint(controller, endpoint), returnType.text(),
+                    RuleContext.simpleName(entityClass), path, context.file().relativePath(), endpoint.line())));
+        }
+    }
+
+    /** REST endpoints accepting an entity as {@code @RequestBody} or {@code @RequestPart}. */
+    static final class EntityInput implements Rule {
+        @Override
+        public String id() {
+            return "entity-input";
+        }
+
+        @Override
+        public String description() {
+            return "REST endpoints accepting entities as request body or part";
+        }
+
+        @Override
+        public Set<NodeKind> nodeKinds() {
+            return EnumSet.of(NodeKind.ENDPOINT);
+        }
+
+        @Override
+        public void visitEndpoint(RuleContext context, TypeSummary controller, EndpointSummary endpoint) {
+            for (ParameterSummary param : endpoint.parameters()) {
+                if (param.bodyAnnotation() == null) continue;
+
+                context.entitiesIn(param.type()).forEach((entityClass, path) ->
+                    context.violations().addInputViolation(context.module(), new Violation.EntityInput(controller.name(),
+                        endpoint.name(), context.endpoint(controller, endpoint), param.name(), param.type().text(),
+                        param.bodyAnnotation(), RuleContext.simpleName(entityClass), path,
+                        context.file().relativePath(), endpoint.line())));
+            }
+        }
+    }
+
+    /** DTO fields and record components holding an entity, directly or through another DTO. */
+    static final class DtoEntityField implements Rule {
+        @Override
+        public String id() {
+            return "dto-entity-field";
+        }
+
+        @Override
+        public String description() {
+            return "DTO fields holding entities";
+        }
+
+        @Override
+        public Set<NodeKind> nodeKinds() {
+            return EnumSet.of(NodeKind.TYPE, NodeKind.FIELD);
+        }
+
+        @Override
+        public void visitType(RuleContext context, TypeSummary type) {
+            if (SourceSummarizer.isDtoName(type.name())) context.violations().dtosFound++;
+        }
+
+        @Override
+        public void visitField(RuleContext context, TypeSummary type, FieldSummary field) {
+            if (!SourceSummarizer.isDtoName(type.name())) return;
+
+            context.entitiesIn(field.type()).forEach((entityClass, path) ->
+                context.violations().addFieldViolation(context.module(), new Violation.DtoEntityField(type.name(),
+                    field.name(), field.type().text(), RuleContext.simpleName(entityClass), path,
+                    context.file().relativePath(), field.line())));
+        }
+    }
+
+    /**
+     * Controllers holding a repository, i.e. bypassing the service layer. Artemis injects through
+     * constructors into fields, so the fields stand for the injected dependencies; calls on
+     * repositories obtained otherwise are not seen. A repository is a project type, resolved in the
+     * controller's scope, whose name ends in {@code Repository}: repository files rarely carry the
+     * markers that get them summarized, so their annotations and supertypes are not known.
+     */
+    static final class ControllerRepositoryAccess implements Rule {
+        @Override
+        public String id() {
+            return "controller-repository-access";
+        }
+
+        @Override
+        public String description() {
+            return "REST controllers with repository fields, i.e. using repositories directly instead of services";
+        }
+
+        @Override
+        public Set<NodeKind> nodeKinds() {
+            return EnumSet.of(NodeKind.FIELD);
+        }
+
+        @Override
+        public void visitField(RuleContext context, TypeSummary type, FieldSummary field) {
+            if (!isController(type)) return;
+
+            for (String typeName : field.type().referencedNames()) {
+                String repository = context.resolve(typeName);
+                if (repository != null && repository.endsWith("Repository") && context.isProjectType(repository)) {
+                    context.report(new Finding(type.name(), field.name(), "uses " + RuleContext.simpleName(repository),
+                        context.file().relativePath(), field.line()));
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Endpoints running in a transaction, which should be opened in the service layer. */
+    static final class TransactionalEndpoint implements Rule {
+        @Override
+        public String id() {
+            return "transactional-endpoint";
+        }
+
+        @Override
+        public String description() {
+            return "REST endpoints annotated with @Transactional, directly or through their controller";
+        }
+
+        @Override
+        public Set<NodeKind> nodeKinds() {
+            return EnumSet.of(NodeKind.ENDPOINT);
+        }
+
+        @Override
+        public void visitEndpoint(RuleContext context, TypeSummary controller, EndpointSummary endpoint) {
+            boolean onMethod = endpoint.hasAnnotation("Transactional");
+            if (!onMethod && !controller.hasAnnotation("Transactional")) return;
+
+            context.report(new Finding(controller.name(), endpoint.name(),
+                context.endpoint(controller, endpoint) + (onMethod ? " is @Transactional" : " is in a @Transactional controller"),
+                context.file().relativePath(), endpoint.line()));
+        }
+    }
+
+    /** Endpoints returning pages of entities, e.g. {@code ResponseEntity<Page<Course>>}. */
+    static final class PagedEntityReturn implements Rule {
+        private static final Set<String> PAGE_TYPES = Set.of("Page", "Slice", "SearchResultPageDTO");
+
+        @Override
+        public String id() {
+            return "paged-entity-return";
+        }
+
+        @Override
+        public String description() {
+            return "REST endpoints returning pages or slices of entities";
+        }
+
+        @Override
+        public Set<NodeKind> nodeKinds() {
+            return EnumSet.of(NodeKind.ENDPOINT);
+        }
+
+        @Override
+        public void visitEndpoint(RuleContext context, TypeSummary controller, EndpointSummary endpoint) {
+            TypeRef returnType = endpoint.returnType();
+            boolean paged = returnType.referencedNames().stream()
+                .anyMatch(name -> PAGE_TYPES.contains(RuleContext.simpleName(name)));
+            if (!paged) return;
+
+            context.entitiesIn(returnType).keySet().stream().sorted().forEach(entityClass ->
+                context.report(new Finding(controller.name(), endpoint.name(),
+                    context.endpoint(controller, endpoint) + " returns " + returnType.text() + " exposing "
+                        + RuleContext.simpleName(entityClass),
+                    context.file().relativePath(), endpoint.line())));
+        }
+    }
+}
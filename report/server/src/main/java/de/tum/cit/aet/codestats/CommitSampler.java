@@ -0,0 +1,201 @@
+package de.tum.cit.aet.codestats;
+
+import com.google.gson.GsonBuilder;
+
+import de.tum.cit.aet.codestats.GitRepository.FileChange;
+import de.tum.cit.aet.codestats.SourceTree.SourceFile;
+import de.tum.cit.aet.codestats.ViolationReportWriter.Totals;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Decides which commits of a batch are analyzed, so that every change of the report is
+ * attributed to its commit while most commits are never analyzed.
+ * <p>
+ * A commit whose {@code .java} changes since the last analyzed commit leave every file summary as
+ * it was (no file added or removed, and each modified file summarizes as before, e.g. because
+ * only method bodies, comments or files without entities, controllers and DTOs changed) has the
+ * same report, which is copied instead of computed. With a sample interval above one, only every
+ * n-th commit and the last one are analyzed; wherever two consecutive samples differ, the
+ * commits between them are bisected until each change is pinned to the commit that made it.
+ * Changes are written to {@code changes.json} in the output directory.
+ * <p>
+ * Commits are expected oldest first, so that "before" and "after" mean what they say and the
+ * history and rollup receive them in order.
+ */
+final class CommitSampler {
+
+    /** The report of an analyzed or carried-forward commit; {@code digest} identifies its content. */
+    private record Outcome(String commit, Path output, String digest, Totals totals) {}
+
+    /** One change of the report, from {@code previous} to {@code commit}; exact if no commit lies between. */
+    private record ReportChange(String commit, String previous, boolean exact, int totalBefore, int totalAfter,
+                                int added, int removed) {}
+
+    private final DtoViolationExtractor extractor;
+    private final GitRepository repository;
+    private final Path outputDir;
+    private final List<Long> timings = new ArrayList<>();
+    private List<String> commits;
+    private Outcome[] outcomes;
+    private int carried = 0;
+    private int bisected = 0;
+    private int failures = 0;
+
+    CommitSampler(DtoViolationExtractor extractor, GitRepository repository, Path outputDir) {
+        this.extractor = extractor;
+        this.repository = repository;
+        this.outputDir = outputDir;
+    }
+
+    /**
+     * Processes {@code commits}, analyzing every {@code interval}-th one, the last one, and the
+     * ones needed to locate every change between them.
+     *
+     * @return the number of commits that could not be analyzed
+     */
+    int run(List<String> commits, int interval) throws Exception {
+        this.commits = commits;
+        this.outcomes = new Outcome[commits.size()];
+
+        // Bisection analyzes out of order, so the history and rollup are appended to once all commits are known
+        ViolationHistory history = extractor.history();
+        ViolationRollup rollup = extractor.rollup();
+        extractor.setHistory(null);
+        extractor.setRollup(null);
+        try {
+            Integer previous = null;
+            for (int i : samples(commits.size(), Math.max(1, interval))) {
+                process(i, previous);
+                if (outcomes[i] == null) continue;
+
+                if (previous != null) bisect(previous, i);
+                previous = i;
+            }
+        } finally {
+            extractor.setHistory(history);
+            extractor.setRollup(rollup);
+        }
+
+        if (history != null || rollup != null) {
+            for (Outcome outcome : outcomes) {
+                if (outcome == null) continue;
+                ViolationReport report = ViolationReport.read(outcome.output());
+                if (history != null) history.append(outcome.commit(), report);
+                if (rollup != null) rollup.append(outcome.commit(), report);
+            }
+        }
+        writeChanges();
+        printSummary();
+        return failures;
+    }
+
+    private static List<Integer> samples(int count, int interval) {
+        List<Integer> samples = new ArrayList<>();
+        for (int i = 0; i < count; i += interval) {
+            samples.add(i);
+        }
+        if (count > 0 && samples.get(samples.size() - 1) != count - 1) samples.add(count - 1);
+        return samples;
+    }
+
+    /** Narrows down where the report changed between the analyzed commits {@code from} and {@code to}. */
+    private void bisect(int from, int to) {
+        if (to - from < 2 || outcomes[from].digest().equals(outcomes[to].digest())) return;
+
+        int middle = (from + to) >>> 1;
+        process(middle, from);
+        if (outcomes[middle] == null) {
+            System.err.println("WARNING: Cannot narrow down the change between " + commits.get(from) + " and " + commits.get(to));
+            return;
+        }
+        bisected++;
+        bisect(from, middle);
+        bisect(middle, to);
+    }
+
+    /** Analyzes commit {@code index}, or copies the report of {@code reference} if nothing relevant changed since. */
+    private void process(int index, Integer reference) {
+        String commit = commits.get(index);
+        System.out.println("\n=== Commit " + (index + 1) + "/" + commits.size() + ": " + commit + " ===");
+
+        try {
+            GitSourceTree tree = repository.tree(commit);
+            Path output = outputDir.resolve(tree.commit() + extractor.reportWriter().extension());
+            Outcome base = reference != null ? outcomes[reference] : null;
+            if (base != null && !hasRelevantChanges(base.commit(), tree)) {
+                Files.copy(base.output(), output, StandardCopyOption.REPLACE_EXISTING);
+                outcomes[index] = new Outcome(tree.commit(), output, base.digest(), base.totals());
+                carried++;
+                System.out.println("No relevant changes since " + base.commit() + ", report carried forward");
+                return;
+            }
+
+            timings.add(extractor.analyzeCommit(tree, output));
+            outcomes[index] = new Outcome(tree.commit(), output, FactCache.blobSha(Files.readAllBytes(output)),
+                extractor.totals());
+        } catch (Exception e) {
+            System.err.println("ERROR: Failed to analyze commit " + commit + ": " + e.getMessage());
+            failures++;
+        }
+    }
+
+    /** Whether any {@code .java} change between {@code base} and {@code tree}, thresholds included, can affect the report. */
+    private boolean hasRelevantChanges(String base, GitSourceTree tree) throws IOException {
+        for (FileChange change : repository.changedJavaFiles(base, tree.commit())) {
+            // Added and removed files change the declared types
+            if (change.oldBlobSha() == null || change.newBlobSha() == null) return true;
+
+            Optional<FileSummary> before = extractor.summarizeFile(tree, new SourceFile(change.relativePath(), change.oldBlobSha()));
+            Optional<FileSummary> after = extractor.summarizeFile(tree, new SourceFile(change.relativePath(), change.newBlobSha()));
+            if (!before.equals(after)) return true;
+        }
+        if (extractor.thresholds()) {
+            String tests = GitRepository.resolvePrefix(repository.sourcePrefix(), ArchitectureThresholds.TEST_SOURCE);
+            for (FileChange change : repository.changedJavaFiles(base, tree.commit(), tests)) {
+                if (change.relativePath().endsWith(ArchitectureThresholds.TEST_SUFFIX)) return true;
+            }
+        }
+        return false;
+    }
+
+    /** Writes every change between consecutive processed commits, with what was added and removed. */
+    private void writeChanges() throws IOException {
+        List<ReportChange> changes = new ArrayList<>();
+        int previous = -1;
+        for (int i = 0; i < outcomes.length; i++) {
+            if (outcomes[i] == null) continue;
+            if (previous >= 0 && !outcomes[previous].digest().equals(outcomes[i].digest())) {
+                List<String> differences = ViolationReport.read(outcomes[previous].output())
+                    .differences(ViolationReport.read(outcomes[i].output()));
+                int added = (int) differences.stream().filter(line -> line.startsWith("+ ")).count();
+                int removed = (int) differences.stream().filter(line -> line.startsWith("- ")).count();
+                ReportChange change = new ReportChange(outcomes[i].commit(), outcomes[previous].commit(), i == previous + 1,
+                    outcomes[previous].totals().total(), outcomes[i].totals().total(), added, removed);
+                changes.add(change);
+                System.out.printf("CHANGE %s: %d -> %d violations (+%d -%d)%s%n", change.commit(), change.totalBefore(),
+                    change.totalAfter(), added, removed, change.exact() ? "" : " somewhere since " + change.previous());
+            }
+            previous = i;
+        }
+        Files.writeString(outputDir.resolve("changes.json"), new GsonBuilder().setPrettyPrinting().create().toJson(changes));
+    }
+
+    private void printSummary() {
+        int processed = (int) Arrays.stream(outcomes).filter(Objects::nonNull).count();
+        System.out.println("\n=== BATCH TIMINGS ===");
+        System.out.println("Commits processed: " + processed + " of " + commits.size() + " (" + timings.size() + " analyzed, "
+            + carried + " carried forward, " + bisected + " bisected" + (failures > 0 ? ", " + failures + " failed" : "") + ")");
+        if (timings.isEmpty()) return;
+
+        long total = timings.stream().mapToLong(Long::longValue).sum();
+        System.out.println("Total: " + total + " ms");
+        System.out.println("First commit (cold JVM): " + timings.get(0) + " ms");
+        if (timings.size() > 1) {
+            double warmMean = timings.stream().skip(1).mapToLong(Long::longValue).average().orElse(0);
+            System.out.printf("Remaining commits (warm JVM): %.0f ms mean%n", warmMean);
+        }
+    }
+}
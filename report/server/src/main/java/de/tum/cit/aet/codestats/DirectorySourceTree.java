@@ -0,0 +1,65 @@
+package de.tum.cit.aet.codestats;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Source files read from a directory on disk.
+ */
+public class DirectorySourceTree implements SourceTree {
+
+    private final Path sourceRoot;
+    private final String commit;
+
+    public DirectorySourceTree(Path sourceRoot) {
+        this(sourceRoot, null);
+    }
+
+    /** @param commit the commit checked out in {@code sourceRoot}, if known */
+    public DirectorySourceTree(Path sourceRoot, String commit) {
+        this.sourceRoot = sourceRoot;
+        this.commit = commit;
+    }
+
+    public Path sourceRoot() {
+        return sourceRoot;
+    }
+
+    @Override
+    public String commit() {
+        return commit;
+    }
+
+    @Override
+    public List<SourceFile> files() throws IOException {
+        try (Stream<Path> walk = Files.walk(sourceRoot)) {
+            // Sorted so entity name collisions and output order do not depend on the file system.
+            // Only the relative names are sorted, so the walk's paths are garbage as soon as visited.
+            return walk.filter(p -> p.toString().endsWith(".java"))
+                .map(this::getRelativePath)
+                .sorted()
+                .map(relativePath -> new SourceFile(relativePath, null))
+                .toList();
+        }
+    }
+
+    @Override
+    public byte[] read(SourceFile file) throws IOException {
+        return Files.readAllBytes(sourceRoot.resolve(file.relativePath()));
+    }
+
+    @Override
+    public DirectorySourceTree sibling(String directory) {
+        return new DirectorySourceTree(sourceRoot.resolve(directory).normalize(), commit);
+    }
+
+    private String getRelativePath(Path file) {
+        try {
+            return sourceRoot.relativize(file).toString().replace('\\', '/');
+        } catch (Exception e) {
+            return file.getFileName().toString();
+        }
+    }
+}
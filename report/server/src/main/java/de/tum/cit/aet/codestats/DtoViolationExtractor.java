@@ -1,25 +1,25 @@
 package de.tum.cit.aet.codestats;
 
-import com.github.javaparser.JavaParser;
-import com.github.javaparser.ParseResult;
-import com.github.javaparser.ParserConfiguration;
-import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.body.*;
-import com.github.javaparser.ast.expr.*;
-import com.github.javaparser.ast.type.ClassOrInterfaceType;
-import com.github.javaparser.ast.type.Type;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import de.tum.cit.aet.codestats.ExtractorMetrics.FileEvent;
+import de.tum.cit.aet.codestats.ExtractorMetrics.PhaseTimer;
+import de.tum.cit.aet.codestats.FileSummary.*;
+import de.tum.cit.aet.codestats.SourceSummarizer.UnparseableSourceException;
+import de.tum.cit.aet.codestats.SourceTree.SourceFile;
+import de.tum.cit.aet.codestats.Violation.*;
+import de.tum.cit.aet.codestats.ViolationReportWriter.Totals;
 
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
-import java.util.stream.Stream;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
 
 /**
  * Static source code analyzer for DTO violations using JavaParser.
  * No runtime dependencies needed - parses source files directly.
- * FULL COVERAGE - analyzes ALL source files.
+ * FULL COVERAGE - analyzes ALL source files, each parsed exactly once into a {@link FileSummary}.
  */
 public class DtoViolationExtractor {
 
@@ -58,471 +58,772 @@ public class DtoViolationExtractor {
         PACKAGE_TO_MODULE.put("de.tum.cit.aet.artemis.tutorialgroup", "tutorialgroup");
         PACKAGE_TO_MODULE.put("de.tum.cit.aet.artemis.videosource", "videosource");
     }
+    private static final PackageTrie<String> MODULE_TRIE = new PackageTrie<>();
+    static {
+        PACKAGE_TO_MODULE.forEach(MODULE_TRIE::put);
+    }
 
-    // REST mapping annotations
-    private static final Set<String> REST_MAPPING_ANNOTATIONS = Set.of(
-        "GetMapping", "PostMapping", "PutMapping", "DeleteMapping", "PatchMapping", "RequestMapping"
-    );
+    // Collected data, reset for every analyzed tree
+    private List<FileSummary> summaries = List.of();
+    private TypeIndex typeIndex = new TypeIndex();
+    private TypeGraph typeGraph = new TypeGraph(Set.of());
+    private ViolationCollector violations = new ViolationCollector();
+    private int filesAnalyzed = 0;
+    private int filesParsed = 0;
+    private ExtractorMetrics metrics;
+
+    // Kept warm across analyzed trees
+    private final int threads;
+    private final RuleEngine ruleEngine = RuleEngine.load();
+    private final Queue<SourceSummarizer> idleSummarizers = new ConcurrentLinkedQueue<>();
+    private FactCache factCache;
+    private ViolationReportWriter reportWriter = new ViolationReportWriter(true, false);
+    private ViolationHistory history;
+    private ViolationRollup rollup;
+    private Totals totals;
+    private boolean prefilter = true;
+    private boolean skeleton = true;
+    private boolean lowMemory = false;
+    private int shards = 1;
+    private boolean thresholds = false;
+    // Of the last analyzed tree, null unless thresholds are read
+    private ArchitectureThresholds architectureThresholds;
+
+    public DtoViolationExtractor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
 
-    // Collected data
-    private final Set<String> entityClasses = new HashSet<>();
-    private final Map<String, String> entitySimpleToFull = new HashMap<>();
-    private final Map<String, List<Map<String, Object>>> moduleReturnViolations = new HashMap<>();
-    private final Map<String, List<Map<String, Object>>> moduleInputViolations = new HashMap<>();
-    private final Map<String, List<Map<String, Object>>> moduleFieldViolations = new HashMap<>();
+    public DtoViolationExtractor(int threads) {
+        this.threads = Math.max(1, threads);
+    }
 
-    private final JavaParser parser;
-    {
-        ParserConfiguration config = new ParserConfiguration();
-        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21);
-        parser = new JavaParser(config);
+    /** Selects the output format; pretty-printed, uncompressed JSON by default. */
+    public void setReportWriter(ViolationReportWriter writer) {
+        this.reportWriter = writer;
     }
-    private Path sourceRoot;
-    private int filesAnalyzed = 0;
-    private int controllersFound = 0;
-    private int dtosFound = 0;
 
-    public static void main(String[] args) throws Exception {
-        String sourcePath = System.getProperty("artemis.source", "../../artemis/src/main/java");
-        String outputPath = System.getProperty("output.file", "violations.json");
+    /** Reuses per-file facts from {@code cache} for unchanged file contents. */
+    public void setFactCache(FactCache cache) {
+        this.factCache = cache;
+    }
 
-        System.out.println("=== DTO Violation Extractor (Static Analysis) ===");
-        System.out.println("Source: " + sourcePath);
-        System.out.println("Output: " + outputPath);
+    /** Additionally appends every report of a known commit to {@code history}. */
+    public void setHistory(ViolationHistory history) {
+        this.history = history;
+    }
 
-        DtoViolationExtractor extractor = new DtoViolationExtractor();
-        extractor.analyze(Path.of(sourcePath), Path.of(outputPath));
+    ViolationHistory history() {
+        return history;
     }
 
-    public void analyze(Path sourcePath, Path outputPath) throws Exception {
-        this.sourceRoot = sourcePath;
+    /** Additionally appends the counts of every report of a known commit to {@code rollup}. */
+    public void setRollup(ViolationRollup rollup) {
+        this.rollup = rollup;
+    }
 
-        if (!Files.exists(sourcePath)) {
-            System.err.println("ERROR: Source directory not found: " + sourcePath.toAbsolutePath());
-            System.exit(1);
-        }
+    ViolationRollup rollup() {
+        return rollup;
+    }
 
-        // Phase 1: Find all @Entity classes
-        System.out.println("\n--- Phase 1: Finding @Entity classes ---");
-        findEntityClasses(sourcePath);
-        System.out.println("Found " + entityClasses.size() + " entity classes");
+    ViolationReportWriter reportWriter() {
+        return reportWriter;
+    }
 
-        // Phase 2: Analyze REST controllers for violations
-        System.out.println("\n--- Phase 2: Analyzing REST controllers ---");
-        analyzeControllers(sourcePath);
-        System.out.println("Analyzed " + controllersFound + " REST controllers");
+    /** The totals of the last written report. */
+    Totals totals() {
+        return totals;
+    }
 
-        // Phase 3: Analyze DTOs for entity field references
-        System.out.println("\n--- Phase 3: Analyzing DTO classes ---");
-        analyzeDtoClasses(sourcePath);
-        System.out.println("Analyzed " + dtosFound + " DTO classes");
+    /**
+     * Whether files are first scanned for {@link SourceMarkers} and only parsed if they can
+     * contribute to a check; on by default. The report is the same either way.
+     */
+    public void setPrefilter(boolean prefilter) {
+        this.prefilter = prefilter;
+    }
 
-        // Phase 4: Write output
-        System.out.println("\n--- Phase 4: Writing results ---");
-        writeOutput(outputPath);
+    /**
+     * Whether method and initializer bodies are blanked before parsing (see {@link SourceSkeleton});
+     * on by default. The report is the same either way.
+     */
+    public void setSkeleton(boolean skeleton) {
+        this.skeleton = skeleton;
+        idleSummarizers.clear();
     }
 
-    private void findEntityClasses(Path sourcePath) throws IOException {
-        try (Stream<Path> files = Files.walk(sourcePath)) {
-            files.filter(p -> p.toString().endsWith(".java"))
-                 .forEach(this::checkForEntity);
-        }
+    /**
+     * Whether summaries are dropped as soon as the phase needing them is done, off by default. The
+     * report is the same either way.
+     * <p>
+     * Normally every summary stays in memory from parsing until the rules ran: a bit over half a
+     * byte of live heap per byte of source, 25 MB for 46 MB in 23,000 files. In low-memory mode the
+     * parse phase only fills the type index and keeps the few facts the type graph is built from;
+     * the analysis phase then parses the files declaring classes or records again, one per worker
+     * at a time, and drops each summary once the rules visited it. No fact cache is used, since it
+     * holds every summary. Live heap is then bounded by the file list, the type index, the type
+     * graph and the violations, plus one file's AST per worker: about a third of a byte per byte
+     * of source, 15 MB for the same tree, which {@code -Xmx32m} analyzes without a full collection.
+     * The price is parsing those files twice.
+     */
+    public void setLowMemory(boolean lowMemory) {
+        this.lowMemory = lowMemory;
     }
 
-    private void checkForEntity(Path file) {
-        try {
-            ParseResult<CompilationUnit> result = parser.parse(file);
-            if (!result.isSuccessful() || result.getResult().isEmpty()) return;
-
-            CompilationUnit cu = result.getResult().get();
-            String packageName = cu.getPackageDeclaration()
-                .map(pd -> pd.getNameAsString())
-                .orElse("");
-
-            cu.findAll(ClassOrInterfaceDeclaration.class).forEach(cls -> {
-                if (hasAnnotation(cls, "Entity") || hasAnnotation(cls, "MappedSuperclass")) {
-                    String fullName = packageName + "." + cls.getNameAsString();
-                    entityClasses.add(fullName);
-                    entitySimpleToFull.put(cls.getNameAsString(), fullName);
-                }
-            });
-        } catch (Exception e) {
-            // Skip unparseable files
-        }
+    /**
+     * Number of worker processes the analysis phase is spread over, by module (see
+     * {@link ShardedAnalysis}); 1, the default, analyzes in this process. The report is the same
+     * either way.
+     */
+    public void setShards(int shards) {
+        this.shards = Math.max(1, shards);
     }
 
-    private void analyzeControllers(Path sourcePath) throws IOException {
-        try (Stream<Path> files = Files.walk(sourcePath)) {
-            files.filter(p -> p.toString().endsWith(".java"))
-                 .forEach(this::analyzeController);
-        }
+    /**
+     * Whether the {@link ArchitectureThresholds ArchUnit thresholds} of each tree are read from its
+     * tests and written into the report next to the violation counts; off by default.
+     */
+    public void setThresholds(boolean thresholds) {
+        this.thresholds = thresholds;
     }
 
-    private void analyzeController(Path file) {
-        try {
-            ParseResult<CompilationUnit> result = parser.parse(file);
-            if (!result.isSuccessful() || result.getResult().isEmpty()) return;
-
-            CompilationUnit cu = result.getResult().get();
-            String packageName = cu.getPackageDeclaration()
-                .map(pd -> pd.getNameAsString())
-                .orElse("");
-
-            // Collect imports for type resolution
-            Map<String, String> imports = new HashMap<>();
-            cu.getImports().forEach(imp -> {
-                String importStr = imp.getNameAsString();
-                String simpleName = importStr.substring(importStr.lastIndexOf('.') + 1);
-                imports.put(simpleName, importStr);
-            });
-
-            cu.findAll(ClassOrInterfaceDeclaration.class).forEach(cls -> {
-                if (!hasAnnotation(cls, "RestController") && !hasAnnotation(cls, "Controller")) {
-                    return;
-                }
+    boolean thresholds() {
+        return thresholds;
+    }
 
-                controllersFound++;
-                String controllerName = cls.getNameAsString();
-                String module = getModuleFromPackage(packageName);
-                String relativePath = getRelativePath(file);
-
-                // Get base path from @RequestMapping on class
-                String basePath = getRequestMappingPath(cls);
-
-                cls.getMethods().forEach(method -> {
-                    // Check if it's a REST endpoint
-                    String foundHttpMethod = null;
-                    String methodPath = "";
-
-                    for (String annotation : REST_MAPPING_ANNOTATIONS) {
-                        if (hasAnnotation(method, annotation)) {
-                            foundHttpMethod = annotation.replace("Mapping", "").toUpperCase();
-                            if (foundHttpMethod.equals("REQUEST")) foundHttpMethod = "REQUEST";
-                            methodPath = getMappingPath(method, annotation);
-                            break;
-                        }
-                    }
+    /** The modules of the last analyzed tree exceeding their thresholds; empty if thresholds are not read. */
+    List<String> exceededThresholds() {
+        return architectureThresholds == null ? List.of() : architectureThresholds.exceeded(violations);
+    }
 
-                    if (foundHttpMethod == null) return;
-
-                    final String httpMethod = foundHttpMethod;
-                    String fullPath = combinePaths(basePath, methodPath);
-                    int lineNumber = method.getBegin().map(p -> p.line).orElse(0);
-
-                    // Check return type for entity violations
-                    Type returnType = method.getType();
-                    Set<String> returnEntityViolations = findEntityTypesInType(returnType, imports, packageName);
-                    for (String entityClass : returnEntityViolations) {
-                        Map<String, Object> violation = new LinkedHashMap<>();
-                        violation.put("controller", controllerName);
-                        violation.put("method", method.getNameAsString());
-                        violation.put("endpoint", httpMethod + " " + fullPath);
-                        violation.put("returnType", returnType.asString());
-                        violation.put("entityClass", getSimpleName(entityClass));
-                        violation.put("file", relativePath);
-                        violation.put("line", lineNumber);
-
-                        moduleReturnViolations.computeIfAbsent(module, k -> new ArrayList<>()).add(violation);
-                    }
+    public static void main(String[] args) throws Exception {
+        String sourcePath = System.getProperty("artemis.source", "../../artemis/src/main/java");
+        String outputPath = System.getProperty("output.file", "violations.json");
+        int threads = Integer.getInteger("extractor.threads", Runtime.getRuntime().availableProcessors());
+        String cachePath = System.getProperty("extractor.cache");
+        String historyPath = System.getProperty("history.dir");
+        String rollupPath = System.getProperty("rollup.file");
+        String commit = System.getProperty("artemis.commit");
+        String commitList = System.getProperty("artemis.commits");
+        boolean compact = Boolean.getBoolean("output.compact");
+        boolean gzip = Boolean.getBoolean("output.gzip");
+        boolean prefilter = !"false".equals(System.getProperty("extractor.prefilter"));
+        boolean skeleton = !"false".equals(System.getProperty("extractor.skeleton"));
+        boolean verify = Boolean.getBoolean("extractor.verify");
+        boolean lowMemory = Boolean.getBoolean("extractor.lowMemory");
+        int shards = Integer.getInteger("extractor.shards", 1);
+        boolean gate = Boolean.getBoolean("extractor.gate");
+        boolean thresholds = gate || Boolean.getBoolean("extractor.thresholds");
+        boolean watch = Arrays.asList(args).contains("--watch");
+
+        System.out.println("=== DTO Violation Extractor (Static Analysis) ===");
+        System.out.println("Source: " + sourcePath + (commit != null ? " @ " + commit : ""));
+        System.out.println("Threads: " + threads);
+        if (shards > 1) System.out.println("Shards: " + shards + " worker processes");
+        if (lowMemory) System.out.println("Low-memory mode: summaries are not kept, fact cache disabled");
+        if (cachePath != null && !lowMemory) System.out.println("Fact cache: " + cachePath);
+        if (historyPath != null) System.out.println("History: " + historyPath);
+        if (rollupPath != null) System.out.println("Rollup: " + rollupPath);
+        if (thresholds) System.out.println("ArchUnit thresholds: " + (gate ? "gating" : "reported"));
+
+        DtoViolationExtractor extractor = new DtoViolationExtractor(threads);
+        if (cachePath != null && !lowMemory) extractor.setFactCache(FactCache.load(Path.of(cachePath), prefilter));
+        extractor.setReportWriter(new ViolationReportWriter(!compact, gzip));
+        extractor.setPrefilter(prefilter);
+        extractor.setSkeleton(skeleton);
+        extractor.setLowMemory(lowMemory);
+        extractor.setShards(shards);
+        extractor.setThresholds(thresholds);
+        if (rollupPath != null) extractor.setRollup(new ViolationRollup(Path.of(rollupPath), Path.of(sourcePath)));
+        if (historyPath != null) {
+            int interval = Integer.getInteger("history.keyframeInterval", ViolationHistory.DEFAULT_KEYFRAME_INTERVAL);
+            extractor.setHistory(ViolationHistory.open(Path.of(historyPath), interval, Path.of(sourcePath)));
+        }
 
-                    // Check parameters for entity input violations
-                    method.getParameters().forEach(param -> {
-                        boolean hasRequestBody = hasAnnotation(param, "RequestBody");
-                        boolean hasRequestPart = hasAnnotation(param, "RequestPart");
+        if (watch && (commit != null || commitList != null)) {
+            System.err.println("ERROR: --watch analyzes the working tree and cannot be combined with artemis.commit or artemis.commits");
+            System.exit(1);
+        }
+        if (watch && shards > 1) {
+            System.err.println("ERROR: --watch analyzes changes in this process and cannot be combined with extractor.shards");
+            System.exit(1);
+        }
+        if (gate && (commitList != null || watch)) {
+            System.err.println("ERROR: extractor.gate checks a single tree and cannot be combined with artemis.commits or --watch");
+            System.exit(1);
+        }
+        if (watch && lowMemory) {
+            System.err.println("ERROR: --watch keeps every summary in memory and cannot be combined with extractor.lowMemory");
+            System.exit(1);
+        }
 
-                        if (hasRequestBody || hasRequestPart) {
-                            Set<String> paramEntityViolations = findEntityTypesInType(param.getType(), imports, packageName);
-                            for (String entityClass : paramEntityViolations) {
-                                Map<String, Object> violation = new LinkedHashMap<>();
-                                violation.put("controller", controllerName);
-                                violation.put("method", method.getNameAsString());
-                                violation.put("endpoint", httpMethod + " " + fullPath);
-                                violation.put("parameterName", param.getNameAsString());
-                                violation.put("parameterType", param.getType().asString());
-                                violation.put("annotationType", hasRequestBody ? "@RequestBody" : "@RequestPart");
-                                violation.put("entityClass", getSimpleName(entityClass));
-                                violation.put("file", relativePath);
-                                violation.put("line", lineNumber);
+        if (commitList != null) {
+            String outputDir = System.getProperty("output.dir", "violations");
+            System.out.println("Commits: " + (commitList.equals("-") ? "<stdin>" : commitList));
+            System.out.println("Output directory: " + outputDir);
+            // Batch runs share facts between commits, persisted or not, unless memory is tight
+            if (extractor.factCache == null && !lowMemory) extractor.setFactCache(FactCache.inMemory());
+
+            int sampleInterval = Integer.getInteger("artemis.sampleInterval", 1);
+            if (sampleInterval > 1) System.out.println("Sample interval: " + sampleInterval);
+            int failures = extractor.analyzeCommits(Path.of(sourcePath), readCommitList(commitList), Path.of(outputDir), sampleInterval);
+            if (extractor.factCache != null) extractor.factCache.save();
+            if (failures > 0) System.exit(1);
+            return;
+        }
 
-                                moduleInputViolations.computeIfAbsent(module, k -> new ArrayList<>()).add(violation);
-                            }
-                        }
-                    });
-                });
-            });
-        } catch (Exception e) {
-            // Skip unparseable files silently
+        System.out.println("Output: " + outputPath);
+        boolean verified = true;
+        if (commit != null) {
+            try (GitRepository repository = openRepository(Path.of(sourcePath))) {
+                extractor.analyze(repository.tree(commit), Path.of(outputPath));
+                if (verify) verified = extractor.verifyAgainstFullParse(repository.tree(commit), Path.of(outputPath));
+            } catch (IOException e) {
+                System.err.println("ERROR: Cannot read commit " + commit + ": " + e.getMessage());
+                System.exit(1);
+            }
+        } else if (historyPath != null || rollupPath != null) {
+            // The history and rollup are keyed by commit, so label the working tree with its HEAD
+            String head = null;
+            try (GitRepository repository = openRepository(Path.of(sourcePath))) {
+                head = repository.resolveCommit("HEAD");
+            } catch (IOException e) {
+                System.err.println("WARNING: Not recording history or rollup, cannot resolve HEAD: " + e.getMessage());
+            }
+            extractor.analyze(new DirectorySourceTree(Path.of(sourcePath), head), Path.of(outputPath));
+            if (verify) verified = extractor.verifyAgainstFullParse(new DirectorySourceTree(Path.of(sourcePath)), Path.of(outputPath));
+        } else {
+            extractor.analyze(Path.of(sourcePath), Path.of(outputPath));
+            if (verify) verified = extractor.verifyAgainstFullParse(new DirectorySourceTree(Path.of(sourcePath)), Path.of(outputPath));
+        }
+        if (extractor.factCache != null) extractor.factCache.save();
+        if (!verified) System.exit(1);
+        if (gate && !extractor.exceededThresholds().isEmpty()) {
+            System.err.println("ERROR: " + extractor.exceededThresholds().size() + " violation counts exceed their ArchUnit thresholds");
+            System.exit(1);
         }
+        if (watch) new SourceWatcher(extractor, Path.of(sourcePath), Path.of(outputPath)).run();
     }
 
-    private void analyzeDtoClasses(Path sourcePath) throws IOException {
-        try (Stream<Path> files = Files.walk(sourcePath)) {
-            files.filter(p -> p.toString().endsWith(".java"))
-                 .forEach(this::analyzeDtoClass);
+    private static List<String> readCommitList(String commitList) throws IOException {
+        BufferedReader reader = commitList.equals("-")
+            ? new BufferedReader(new InputStreamReader(System.in))
+            : Files.newBufferedReader(Path.of(commitList));
+        try (reader) {
+            return reader.lines()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .toList();
         }
     }
 
-    private void analyzeDtoClass(Path file) {
-        try {
-            ParseResult<CompilationUnit> result = parser.parse(file);
-            if (!result.isSuccessful() || result.getResult().isEmpty()) return;
-
-            CompilationUnit cu = result.getResult().get();
-            String packageName = cu.getPackageDeclaration()
-                .map(pd -> pd.getNameAsString())
-                .orElse("");
-
-            // Collect imports
-            Map<String, String> imports = new HashMap<>();
-            cu.getImports().forEach(imp -> {
-                String importStr = imp.getNameAsString();
-                String simpleName = importStr.substring(importStr.lastIndexOf('.') + 1);
-                imports.put(simpleName, importStr);
-            });
-
-            String module = getModuleFromPackage(packageName);
-            String relativePath = getRelativePath(file);
-
-            // Check classes
-            cu.findAll(ClassOrInterfaceDeclaration.class).forEach(cls -> {
-                String className = cls.getNameAsString();
-                if (!className.contains("DTO") && !className.endsWith("Dto")) return;
-
-                dtosFound++;
-                cls.getFields().forEach(field -> {
-                    field.getVariables().forEach(var -> {
-                        Set<String> entityViolations = findEntityTypesInType(var.getType(), imports, packageName);
-                        for (String entityClass : entityViolations) {
-                            int lineNumber = field.getBegin().map(p -> p.line).orElse(0);
-
-                            Map<String, Object> violation = new LinkedHashMap<>();
-                            violation.put("dtoClass", className);
-                            violation.put("fieldName", var.getNameAsString());
-                            violation.put("fieldType", var.getType().asString());
-                            violation.put("entityClass", getSimpleName(entityClass));
-                            violation.put("file", relativePath);
-                            violation.put("line", lineNumber);
-
-                            moduleFieldViolations.computeIfAbsent(module, k -> new ArrayList<>()).add(violation);
-                        }
-                    });
-                });
-            });
-
-            // Also check record components
-            cu.findAll(RecordDeclaration.class).forEach(rec -> {
-                String recName = rec.getNameAsString();
-                if (!recName.contains("DTO") && !recName.endsWith("Dto")) return;
-
-                dtosFound++;
-                rec.getParameters().forEach(param -> {
-                    Set<String> entityViolations = findEntityTypesInType(param.getType(), imports, packageName);
-                    for (String entityClass : entityViolations) {
-                        int lineNumber = param.getBegin().map(p -> p.line).orElse(0);
-
-                        Map<String, Object> violation = new LinkedHashMap<>();
-                        violation.put("dtoClass", recName);
-                        violation.put("fieldName", param.getNameAsString());
-                        violation.put("fieldType", param.getType().asString());
-                        violation.put("entityClass", getSimpleName(entityClass));
-                        violation.put("file", relativePath);
-                        violation.put("line", lineNumber);
-
-                        moduleFieldViolations.computeIfAbsent(module, k -> new ArrayList<>()).add(violation);
-                    }
-                });
-            });
-        } catch (Exception e) {
-            // Skip unparseable files
+    private static GitRepository openRepository(Path sourcePath) throws IOException {
+        if (!Files.exists(sourcePath)) {
+            System.err.println("ERROR: Source directory not found: " + sourcePath.toAbsolutePath());
+            System.exit(1);
         }
+        return new GitRepository(sourcePath);
     }
 
-    private Set<String> findEntityTypesInType(Type type, Map<String, String> imports, String currentPackage) {
-        Set<String> violations = new HashSet<>();
-        findEntityTypesRecursive(type, imports, currentPackage, violations);
-        return violations;
+    public void analyze(Path sourcePath, Path outputPath) throws Exception {
+        if (!Files.exists(sourcePath)) {
+            System.err.println("ERROR: Source directory not found: " + sourcePath.toAbsolutePath());
+            System.exit(1);
+        }
+
+        analyze(new DirectorySourceTree(sourcePath), outputPath);
     }
 
-    private void findEntityTypesRecursive(Type type, Map<String, String> imports, String currentPackage, Set<String> violations) {
-        if (type.isClassOrInterfaceType()) {
-            ClassOrInterfaceType cit = type.asClassOrInterfaceType();
-            String typeName = cit.getNameAsString();
+    /**
+     * Analyzes every commit in one JVM, reading each from the git object store and writing
+     * {@code <outputDir>/<full commit id>.json} (or {@code .json.gz}). Worker parsers, the
+     * {@code git cat-file} reader and the fact cache stay warm across commits; per-commit timings
+     * are reported at the end.
+     *
+     * @return the number of commits that could not be analyzed
+     */
+    public int analyzeCommits(Path sourcePath, List<String> commits, Path outputDir) throws Exception {
+        return analyzeCommits(sourcePath, commits, outputDir, 1);
+    }
 
-            // Resolve full type name
-            String fullTypeName = resolveTypeName(typeName, imports, currentPackage);
+    /**
+     * Like {@link #analyzeCommits(Path, List, Path)}, but analyzes only every
+     * {@code sampleInterval}-th of the commits (oldest first), the last one, and those needed to
+     * pin each change of the report to its commit; see {@link CommitSampler}. Commits without
+     * relevant changes get a copy of the previous report instead of an analysis.
+     *
+     * @return the number of commits that could not be analyzed
+     */
+    public int analyzeCommits(Path sourcePath, List<String> commits, Path outputDir, int sampleInterval) throws Exception {
+        Files.createDirectories(outputDir);
+        try (GitRepository repository = openRepository(sourcePath)) {
+            return new CommitSampler(this, repository, outputDir).run(commits, sampleInterval);
+        }
+    }
 
-            if (entityClasses.contains(fullTypeName)) {
-                violations.add(fullTypeName);
-            }
+    /**
+     * Analyzes one commit of a batch into {@code outputPath}.
+     *
+     * @return the time it took, in ms
+     */
+    long analyzeCommit(GitSourceTree tree, Path outputPath) throws Exception {
+        long start = System.nanoTime();
+        analyze(tree, outputPath);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Commit " + tree.commit() + " took " + millis + " ms (" + filesAnalyzed
+            + " files, " + filesParsed + " parsed)");
+        return millis;
+    }
 
-            // Check generic type arguments (e.g., List<Entity>, ResponseEntity<Entity>)
-            cit.getTypeArguments().ifPresent(args -> {
-                args.forEach(arg -> findEntityTypesRecursive(arg, imports, currentPackage, violations));
-            });
-        } else if (type.isArrayType()) {
-            findEntityTypesRecursive(type.asArrayType().getComponentType(), imports, currentPackage, violations);
-        } else if (type.isWildcardType()) {
-            // Handle wildcards like ? extends Entity or ? super Entity
-            var wildcard = type.asWildcardType();
-            wildcard.getExtendedType().ifPresent(ext -> findEntityTypesRecursive(ext, imports, currentPackage, violations));
-            wildcard.getSuperType().ifPresent(sup -> findEntityTypesRecursive(sup, imports, currentPackage, violations));
+    /**
+     * Analyzes {@code sourceTree} again with the pre-filter and skeleton parsing off and without the
+     * fact cache, so every file is fully parsed, and compares the result with the report already
+     * written to {@code outputPath}.
+     *
+     * @return whether both reports are identical
+     */
+    public boolean verifyAgainstFullParse(SourceTree sourceTree, Path outputPath) throws Exception {
+        System.out.println("\n=== VERIFY: analyzing again with every file fully parsed ===");
+        String name = ExtractorMetrics.sidecarOf(outputPath).getFileName().toString().replace(".metrics.json", "");
+        Path referencePath = outputPath.resolveSibling(name + ".fullparse" + reportWriter.extension());
+
+        DtoViolationExtractor reference = new DtoViolationExtractor(threads);
+        reference.setPrefilter(false);
+        reference.setSkeleton(false);
+        reference.setReportWriter(reportWriter);
+        reference.analyze(sourceTree, referencePath);
+
+        List<String> differences = ViolationReport.read(outputPath).differences(ViolationReport.read(referencePath));
+        System.out.println("\n=== VERIFY RESULT ===");
+        if (differences.isEmpty()) {
+            System.out.println("Report is identical to the full-parse report");
+            return true;
         }
+        System.err.println("ERROR: Report differs from the full-parse report " + referencePath + ":");
+        differences.stream().limit(50).forEach(line -> System.err.println("  " + line));
+        if (differences.size() > 50) System.err.println("  ... " + (differences.size() - 50) + " more");
+        return false;
     }
 
-    private String resolveTypeName(String simpleName, Map<String, String> imports, String currentPackage) {
-        // Check if it's in imports
-        if (imports.containsKey(simpleName)) {
-            return imports.get(simpleName);
+    public void analyze(SourceTree sourceTree, Path outputPath) throws Exception {
+        // Release the previous tree's facts before collecting this one's
+        summaries = List.of();
+        architectureThresholds = null;
+        typeIndex = new TypeIndex();
+        typeGraph = new TypeGraph(Set.of());
+        violations = new ViolationCollector();
+        metrics = new ExtractorMetrics(sourceTree.commit());
+
+        // Phase 1: Parse every source file exactly once
+        System.out.println("\n--- Phase 1: Parsing source files ---");
+        PhaseTimer phase = metrics.startPhase("parse");
+        // The cache's counters span every tree it served, e.g. the commits of a batch
+        int cacheHitsBefore = factCache != null ? factCache.hits() : 0;
+        int cacheMissesBefore = factCache != null ? factCache.misses() : 0;
+        List<SourceFile> files = sourceTree.files();
+        filesAnalyzed = files.size();
+        // Sharded runs only need the index here; the workers parse again
+        boolean streaming = lowMemory || shards > 1;
+        IndexedSources indexed = null;
+        if (streaming) {
+            indexed = indexSources(sourceTree, files);
+        } else {
+            summaries = summarizeSources(sourceTree, files);
+        }
+        phase.end(filesAnalyzed);
+        int summarized = streaming ? indexed.summarized() : summaries.size();
+        System.out.println("Summarized " + summarized + " of " + filesAnalyzed + " source files");
+        if (prefilter) {
+            System.out.println("Pre-filter: " + metrics.filesSkipped() + " files without entity, controller or DTO markers skipped");
+        }
+        if (factCache != null) {
+            int cacheHits = factCache.hits() - cacheHitsBefore;
+            int cacheMisses = factCache.misses() - cacheMissesBefore;
+            metrics.recordFactCache(cacheHits, cacheMisses);
+            System.out.println("Fact cache: " + cacheHits + " hits, " + cacheMisses + " misses");
+        }
+
+        // Phase 2: Index all declared types and find the @Entity classes among them
+        System.out.println("\n--- Phase 2: Finding @Entity classes ---");
+        phase = metrics.startPhase("entities");
+        if (streaming) {
+            // Indexed while parsing; only the graph is left
+            linkTypes(indexed.linkFacts());
+            phase.end(indexed.linkFacts().size());
+        } else {
+            summaries.forEach(this::indexTypes);
+            linkTypes(summaries);
+            phase.end(summaries.size());
+        }
+        System.out.println("Found " + typeIndex.entityCount() + " entity classes");
+
+        // Phase 3: Evaluate all rules in one walk over the summaries
+        System.out.println("\n--- Phase 3: Analyzing REST controllers and DTO classes ---");
+        phase = metrics.startPhase("analysis");
+        if (shards > 1) {
+            violations = new ShardedAnalysis(shards, threads, prefilter, skeleton)
+                .run(sourceTree, typeIndex, typeGraph, indexed.withTypes(), indexed.modules());
+            phase.end(indexed.withTypes().size());
+        } else if (lowMemory) {
+            violations = analyzeFiles(sourceTree, indexed.withTypes());
+            phase.end(indexed.withTypes().size());
+        } else {
+            List<RuleEngine.Worker> workers = runWorkers(summaries.size(),
+                () -> ruleEngine.newWorker(typeIndex, typeGraph, new ViolationCollector()),
+                (worker, i) -> ruleEngine.visit(summaries.get(i), worker));
+            workers.forEach(worker -> violations.merge(worker.violations()));
+            ruleEngine.recordTimings(workers, metrics);
+            violations.sort();
+            phase.end(summaries.size());
         }
-        // Check if it matches a known entity by simple name
-        if (entitySimpleToFull.containsKey(simpleName)) {
-            return entitySimpleToFull.get(simpleName);
+        System.out.println("Analyzed " + violations.controllersFound + " REST controllers");
+        System.out.println("Analyzed " + violations.dtosFound + " DTO classes");
+
+        // Phase 4: Write output, with the thresholds the tests enforce
+        System.out.println("\n--- Phase 4: Writing results ---");
+        if (thresholds) {
+            phase = metrics.startPhase("thresholds");
+            architectureThresholds = ArchitectureThresholds.read(sourceTree);
+            phase.end(architectureThresholds.byModule().size());
+            System.out.println("Read ArchUnit thresholds of " + architectureThresholds.byModule().size() + " modules");
         }
-        // Assume it's in current package
-        return currentPackage + "." + simpleName;
+        phase = metrics.startPhase("write");
+        writeOutput(outputPath, sourceTree.commit());
+        phase.end(0);
+
+        metrics.finish(ExtractorMetrics.sidecarOf(outputPath));
     }
 
-    private boolean hasAnnotation(BodyDeclaration<?> decl, String annotationName) {
-        return decl.getAnnotations().stream()
-            .anyMatch(a -> a.getNameAsString().equals(annotationName));
+    private List<FileSummary> summarizeSources(SourceTree sourceTree, List<SourceFile> files) throws Exception {
+        // Each worker owns its parser; results land in path order regardless of scheduling.
+        // Parsers are returned to the idle pool so later trees reuse them warm.
+        FileSummary[] results = new FileSummary[files.size()];
+        idleSummarizers.addAll(runWorkers(files.size(), this::acquireSummarizer, (summarizer, i) ->
+            results[i] = summarize(summarizer, sourceTree, files.get(i)).orElse(null)));
+        filesParsed = metrics.filesParsed();
+
+        return Arrays.stream(results).filter(Objects::nonNull).toList();
     }
 
-    private boolean hasAnnotation(Parameter param, String annotationName) {
-        return param.getAnnotations().stream()
-            .anyMatch(a -> a.getNameAsString().equals(annotationName));
+    /**
+     * What low-memory and sharded runs keep of the parse phase: the facts of the files adding edges
+     * to the type graph (see {@link #linkFacts}), and the files declaring classes or records, which
+     * the analysis phase parses again, with the module of each.
+     */
+    private record IndexedSources(int summarized, List<FileSummary> linkFacts, List<SourceFile> withTypes,
+                                  List<String> modules) {}
+
+    /** A streaming analysis worker: it parses a file and hands the summary straight to the rules. */
+    private record Analyzer(SourceSummarizer summarizer, RuleEngine.Worker rules) {}
+
+    /** Summarizes every file and indexes its types right away instead of keeping the summary. */
+    private IndexedSources indexSources(SourceTree sourceTree, List<SourceFile> files) throws Exception {
+        FileSummary[] linkFacts = new FileSummary[files.size()];
+        String[] modules = new String[files.size()];
+        AtomicInteger summarized = new AtomicInteger();
+        idleSummarizers.addAll(runWorkers(files.size(), this::acquireSummarizer, (summarizer, i) ->
+            summarize(summarizer, sourceTree, files.get(i)).ifPresent(summary -> {
+                summarized.incrementAndGet();
+                synchronized (typeIndex) {
+                    indexTypes(summary);
+                }
+                FileSummary facts = linkFacts(summary);
+                if (!facts.types().isEmpty()) linkFacts[i] = facts;
+                if (!summary.types().isEmpty()) modules[i] = moduleOf(summary.packageName());
+            })));
+        filesParsed = metrics.filesParsed();
+
+        List<SourceFile> withTypes = new ArrayList<>();
+        List<String> withTypesModules = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            if (modules[i] == null) continue;
+            withTypes.add(files.get(i));
+            withTypesModules.add(modules[i]);
+        }
+        return new IndexedSources(summarized.get(), Arrays.stream(linkFacts).filter(Objects::nonNull).toList(),
+            withTypes, withTypesModules);
     }
 
-    private String getRequestMappingPath(ClassOrInterfaceDeclaration cls) {
-        return cls.getAnnotations().stream()
-            .filter(a -> a.getNameAsString().equals("RequestMapping"))
-            .findFirst()
-            .map(this::extractPathFromAnnotation)
-            .orElse("");
+    /** Parses {@code files} again and hands each summary straight to the rules; returns the sorted violations. */
+    private ViolationCollector analyzeFiles(SourceTree sourceTree, List<SourceFile> files) throws Exception {
+        List<Analyzer> analyzers = runWorkers(files.size(),
+            () -> new Analyzer(acquireSummarizer(), ruleEngine.newWorker(typeIndex, typeGraph, new ViolationCollector())),
+            (analyzer, i) -> summarize(analyzer.summarizer(), sourceTree, files.get(i))
+                .ifPresent(summary -> ruleEngine.visit(summary, analyzer.rules())));
+        analyzers.forEach(analyzer -> idleSummarizers.add(analyzer.summarizer()));
+
+        List<RuleEngine.Worker> workers = analyzers.stream().map(Analyzer::rules).toList();
+        ViolationCollector collected = new ViolationCollector();
+        workers.forEach(worker -> collected.merge(worker.violations()));
+        ruleEngine.recordTimings(workers, metrics);
+        collected.sort();
+        return collected;
     }
 
-    private String getMappingPath(MethodDeclaration method, String annotationName) {
-        return method.getAnnotations().stream()
-            .filter(a -> a.getNameAsString().equals(annotationName))
-            .findFirst()
-            .map(this::extractPathFromAnnotation)
-            .orElse("");
+    /**
+     * The analysis phase of one shard: analyzes {@code files} against the index and graph the
+     * coordinator built, and writes their report to {@code outputPath}.
+     */
+    ViolationCollector analyzeShard(SourceTree sourceTree, List<SourceFile> files, TypeIndex index, TypeGraph graph,
+                                    Path outputPath) throws Exception {
+        typeIndex = index;
+        typeGraph = graph;
+        metrics = new ExtractorMetrics(sourceTree.commit());
+        PhaseTimer phase = metrics.startPhase("analysis");
+        ViolationCollector collected = analyzeFiles(sourceTree, files);
+        phase.end(files.size());
+        writeReport(collected, outputPath);
+        metrics.finish(ExtractorMetrics.sidecarOf(outputPath));
+        return collected;
     }
 
-    private String extractPathFromAnnotation(AnnotationExpr annotation) {
-        if (annotation.isSingleMemberAnnotationExpr()) {
-            return extractStringValue(annotation.asSingleMemberAnnotationExpr().getMemberValue());
-        } else if (annotation.isNormalAnnotationExpr()) {
-            for (MemberValuePair pair : annotation.asNormalAnnotationExpr().getPairs()) {
-                if (pair.getNameAsString().equals("value") || pair.getNameAsString().equals("path")) {
-                    return extractStringValue(pair.getValue());
-                }
-            }
-        }
-        return "";
+    private SourceSummarizer acquireSummarizer() {
+        SourceSummarizer summarizer = idleSummarizers.poll();
+        return summarizer != null ? summarizer : new SourceSummarizer(skeleton);
     }
 
-    private String extractStringValue(Expression expr) {
-        if (expr.isStringLiteralExpr()) {
-            return expr.asStringLiteralExpr().getValue();
-        } else if (expr.isArrayInitializerExpr()) {
-            // Take first element if it's an array
-            return expr.asArrayInitializerExpr().getValues().stream()
-                .findFirst()
-                .map(this::extractStringValue)
-                .orElse("");
+    private Optional<FileSummary> summarize(SourceSummarizer summarizer, SourceTree sourceTree, SourceFile file) {
+        FileEvent event = new FileEvent();
+        event.begin();
+        event.path = file.relativePath();
+        Optional<FileSummary> summary = summarize(summarizer, sourceTree, file, event);
+        if (summary.isEmpty() && event.failure == null) {
+            // Known to be unparseable from an earlier run
+            recordFailure(event, "unparseable (cached)");
         }
-        return "";
+        event.commit();
+        return summary;
     }
 
-    private String combinePaths(String base, String path) {
-        if (base.isEmpty()) return path.isEmpty() ? "/" : path;
-        if (path.isEmpty()) return base;
-        if (base.endsWith("/") && path.startsWith("/")) {
-            return base + path.substring(1);
+    private Optional<FileSummary> summarize(SourceSummarizer summarizer, SourceTree sourceTree, SourceFile file,
+                                            FileEvent event) {
+        String relativePath = file.relativePath();
+        if (factCache == null) {
+            return read(sourceTree, file, event).flatMap(content -> parse(summarizer, content, relativePath, event));
         }
-        if (!base.endsWith("/") && !path.startsWith("/")) {
-            return base + "/" + path;
+
+        // Git trees know the blob id up front, so cache hits never touch the content
+        String blobSha = file.blobSha();
+        Optional<byte[]> content = Optional.empty();
+        if (blobSha == null) {
+            content = read(sourceTree, file, event);
+            if (content.isEmpty()) return Optional.empty();
+            blobSha = FactCache.blobSha(content.get());
         }
-        return base + path;
+
+        Optional<byte[]> loaded = content;
+        return factCache.computeIfAbsent(blobSha, relativePath, () ->
+            (loaded.isPresent() ? loaded : read(sourceTree, file, event))
+                .flatMap(bytes -> parse(summarizer, bytes, relativePath, event)));
     }
 
-    private String getModuleFromPackage(String packageName) {
-        for (Map.Entry<String, String> entry : PACKAGE_TO_MODULE.entrySet()) {
-            if (packageName.startsWith(entry.getKey())) {
-                return entry.getValue();
-            }
+    private Optional<FileSummary> parse(SourceSummarizer summarizer, byte[] content, String relativePath,
+                                        FileEvent event) {
+        if (prefilter && SourceMarkers.scan(content) == SourceMarkers.NONE) {
+            // Cannot contribute to any check; the empty summary is cached like any other
+            metrics.recordSkipped();
+            event.skipped = true;
+            return Optional.of(FileSummary.withoutTypes(relativePath));
+        }
+        try {
+            FileSummary summary = summarizer.summarizeOrThrow(content, relativePath);
+            metrics.recordParsed();
+            event.parsed = true;
+            return Optional.of(summary);
+        } catch (UnparseableSourceException e) {
+            metrics.recordParsed();
+            recordFailure(event, e.getMessage());
+            return Optional.empty();
         }
-        return "other";
     }
 
-    private String getRelativePath(Path file) {
+    private Optional<byte[]> read(SourceTree sourceTree, SourceFile file, FileEvent event) {
         try {
-            return sourceRoot.relativize(file).toString().replace('\\', '/');
-        } catch (Exception e) {
-            return file.getFileName().toString();
+            byte[] content = sourceTree.read(file);
+            metrics.recordBytesRead(content.length);
+            event.bytes = content.length;
+            return Optional.of(content);
+        } catch (IOException e) {
+            // Skip unreadable files
+            recordFailure(event, "unreadable: " + e.getClass().getSimpleName());
+            return Optional.empty();
         }
     }
 
-    private String getSimpleName(String fullName) {
-        int lastDot = fullName.lastIndexOf('.');
-        return lastDot >= 0 ? fullName.substring(lastDot + 1) : fullName;
+    private void recordFailure(FileEvent event, String cause) {
+        metrics.recordParseFailure(cause);
+        event.failure = cause;
     }
 
-    private void writeOutput(Path outputPath) throws IOException {
-        Map<String, Object> output = new LinkedHashMap<>();
+    /**
+     * Runs {@code task} for every index in [0, taskCount) on the configured number of threads.
+     * Each worker gets its own state from {@code newWorker}, so tasks never share mutable data;
+     * the worker states are returned for merging.
+     */
+    private <W> List<W> runWorkers(int taskCount, Supplier<W> newWorker, ObjIntConsumer<W> task) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        Callable<W> worker = () -> {
+            W state = newWorker.get();
+            for (int i = next.getAndIncrement(); i < taskCount; i = next.getAndIncrement()) {
+                task.accept(state, i);
+            }
+            return state;
+        };
 
-        // Build modules structure
-        Map<String, Object> modules = new LinkedHashMap<>();
+        if (threads == 1) {
+            return List.of(worker.call());
+        }
 
-        Set<String> allModules = new HashSet<>();
-        allModules.addAll(PACKAGE_TO_MODULE.values());
-        allModules.addAll(moduleReturnViolations.keySet());
-        allModules.addAll(moduleInputViolations.keySet());
-        allModules.addAll(moduleFieldViolations.keySet());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<W> states = new ArrayList<>();
+            for (Future<W> future : pool.invokeAll(Collections.nCopies(threads, worker))) {
+                states.add(future.get());
+            }
+            return states;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Summaries of the files of the last analyzed tree, in path order; unparseable files are
+     * missing. Empty in {@link #setLowMemory low-memory mode}.
+     */
+    List<FileSummary> summaries() {
+        return summaries;
+    }
+
+    /** Reads and summarizes a single file of {@code sourceTree}, counting it in the current metrics. */
+    Optional<FileSummary> summarizeFile(SourceTree sourceTree, SourceFile file) {
+        SourceSummarizer summarizer = acquireSummarizer();
+        try {
+            return summarize(summarizer, sourceTree, file);
+        } finally {
+            idleSummarizers.add(summarizer);
+        }
+    }
 
-        int totalReturn = 0, totalInput = 0, totalField = 0;
+    TypeGraph typeGraph() {
+        return typeGraph;
+    }
+
+    /** Rebuilds the type index and type graph from {@code summaries}, as phase 2 does. */
+    void indexAll(Collection<FileSummary> summaries) {
+        typeIndex = new TypeIndex();
+        summaries.forEach(this::indexTypes);
+        linkTypes(summaries);
+    }
 
-        for (String module : allModules.stream().sorted().toList()) {
-            List<Map<String, Object>> returns = moduleReturnViolations.getOrDefault(module, List.of());
-            List<Map<String, Object>> inputs = moduleInputViolations.getOrDefault(module, List.of());
-            List<Map<String, Object>> fields = moduleFieldViolations.getOrDefault(module, List.of());
+    void indexTypes(FileSummary summary) {
+        typeIndex.addDeclarations(summary);
+        for (TypeSummary type : summary.types()) {
+            if (isEntity(type)) {
+                typeIndex.addEntity(summary.packageName(), type.nestedName());
+            }
+        }
+    }
 
-            Map<String, Object> moduleData = new LinkedHashMap<>();
-            moduleData.put("entityReturnViolations", returns.size());
-            moduleData.put("entityInputViolations", inputs.size());
-            moduleData.put("dtoEntityFieldViolations", fields.size());
-            moduleData.put("entityReturnDetails", returns);
-            moduleData.put("entityInputDetails", inputs);
-            moduleData.put("dtoEntityFieldDetails", fields);
+    static boolean isEntity(TypeSummary type) {
+        return type.kind() == TypeKind.CLASS && (type.hasAnnotation("Entity") || type.hasAnnotation("MappedSuperclass"));
+    }
 
-            modules.put(module, moduleData);
+    /**
+     * The part of {@code summary} {@link #linkTypes} reads: its types with a superclass or DTO
+     * fields, without endpoints, annotations and controller fields.
+     */
+    private static FileSummary linkFacts(FileSummary summary) {
+        List<TypeSummary> linking = new ArrayList<>();
+        for (TypeSummary type : summary.types()) {
+            boolean isDto = SourceSummarizer.isDtoName(type.name());
+            if (type.superclass() == null && !(isDto && !type.fields().isEmpty())) continue;
+
+            linking.add(new TypeSummary(type.name(), type.nestedName(), type.kind(), type.superclass(), Set.of(), "",
+                List.of(), isDto ? type.fields() : List.of()));
+        }
+        return new FileSummary(summary.relativePath(), summary.packageName(), summary.imports(), summary.declaredTypes(), linking);
+    }
 
-            totalReturn += returns.size();
-            totalInput += inputs.size();
-            totalField += fields.size();
+    /** Builds the type graph over all indexed types, so entities reached through DTOs and superclasses are found. */
+    void linkTypes(Collection<FileSummary> summaries) {
+        typeGraph = new TypeGraph(typeIndex.entities());
+        for (FileSummary summary : summaries) {
+            if (summary.types().isEmpty()) continue;
+
+            TypeIndex.Scope scope = typeIndex.scope(summary);
+            for (TypeSummary type : summary.types()) {
+                String qualifiedName = typeIndex.qualifiedName(summary.packageName(), type.nestedName());
+                if (type.superclass() != null) {
+                    String superclass = scope.resolve(type.superclass());
+                    if (superclass != null) typeGraph.addSuperclass(qualifiedName, superclass);
+                }
+                // Only DTO fields are edges; controllers are never referenced
+                if (!SourceSummarizer.isDtoName(type.name())) continue;
+                for (FieldSummary field : type.fields()) {
+                    for (String typeName : field.type().referencedNames()) {
+                        String fieldType = scope.resolve(typeName);
+                        if (fieldType != null) typeGraph.addField(qualifiedName, field.name(), fieldType);
+                    }
+                }
+            }
         }
+        typeGraph.computeReachability();
+    }
 
-        Map<String, Object> totals = new LinkedHashMap<>();
-        totals.put("entityReturnViolations", totalReturn);
-        totals.put("entityInputViolations", totalInput);
-        totals.put("dtoEntityFieldViolations", totalField);
+    /** Adds the violations found in {@code summary}'s controllers and DTOs to {@code collector}. */
+    void analyzeFile(FileSummary summary, ViolationCollector collector) {
+        ruleEngine.visit(summary, ruleEngine.newWorker(typeIndex, typeGraph, collector));
+    }
 
-        output.put("modules", modules);
-        output.put("totals", totals);
+    static String moduleOf(String packageName) {
+        return MODULE_TRIE.longestMatch(packageName, "other");
+    }
 
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        Files.writeString(outputPath, gson.toJson(output));
+    private void writeOutput(Path outputPath, String commit) throws IOException {
+        ViolationReport report = report(violations);
+        totals = reportWriter.write(outputPath, report.modules(), report.violations(), architectureThresholds);
+        if (history != null && commit != null) history.append(commit, report);
+        if (rollup != null && commit != null) rollup.append(commit, report);
 
         System.out.println("\n=== RESULTS (FULL COVERAGE) ===");
         System.out.println("Files analyzed: " + filesAnalyzed);
-        System.out.println("Entity classes found: " + entityClasses.size());
-        System.out.println("REST controllers found: " + controllersFound);
-        System.out.println("DTO classes found: " + dtosFound);
+        System.out.println("Entity classes found: " + typeIndex.entityCount());
+        System.out.println("REST controllers found: " + violations.controllersFound);
+        System.out.println("DTO classes found: " + violations.dtosFound);
         System.out.println("");
-        System.out.println("TOTAL VIOLATIONS: " + (totalReturn + totalInput + totalField));
-        System.out.println("  - Entity return violations: " + totalReturn);
-        System.out.println("  - Entity input violations: " + totalInput);
-        System.out.println("  - DTO entity field violations: " + totalField);
+        System.out.println("TOTAL VIOLATIONS: " + totals.total());
+        System.out.println("  - Entity return violations: " + totals.entityReturnViolations());
+        System.out.println("  - Entity input violations: " + totals.entityInputViolations());
+        System.out.println("  - DTO entity field violations: " + totals.dtoEntityFieldViolations());
+        System.out.println("TRANSITIVE VIOLATIONS (through DTOs and superclasses, not counted above): "
+            + report.violations().transitiveCount());
+        for (Rule rule : ruleEngine.rules()) {
+            Map<String, List<Rule.Finding>> findings = violations.ruleFindings.get(rule.id());
+            if (findings == null) continue;
+            System.out.println("RULE " + rule.id() + " (" + rule.description() + "): "
+                + findings.values().stream().mapToInt(List::size).sum());
+        }
+        if (architectureThresholds != null) {
+            Totals maximum = architectureThresholds.totals();
+            System.out.println("ARCHUNIT THRESHOLDS: " + maximum.total() + " in " + architectureThresholds.byModule().size()
+                + " modules (" + maximum.entityReturnViolations() + " return, " + maximum.entityInputViolations()
+                + " input, " + maximum.dtoEntityFieldViolations() + " DTO field)");
+            exceededThresholds().forEach(line -> System.out.println("  - EXCEEDED " + line));
+        }
         System.out.println("\nOutput written to: " + outputPath);
     }
+
+    /** Writes the report of {@code collected} (already sorted) in the configured format. */
+    Totals writeReport(ViolationCollector collected, Path outputPath) throws IOException {
+        ViolationReport report = report(collected);
+        return reportWriter.write(outputPath, report.modules(), report.violations(), architectureThresholds);
+    }
+
+    private ViolationReport report(ViolationCollector collected) {
+        Set<String> allModules = new HashSet<>();
+        allModules.addAll(PACKAGE_TO_MODULE.values());
+        allModules.addAll(collected.moduleReturnViolations.keySet());
+        allModules.addAll(collected.moduleInputViolations.keySet());
+        allModules.addAll(collected.moduleFieldViolations.keySet());
+        return new ViolationReport(allModules.stream().sorted().toList(), collected);
+    }
 }
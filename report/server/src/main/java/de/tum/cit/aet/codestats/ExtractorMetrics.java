@@ -0,0 +1,234 @@
+package de.tum.cit.aet.codestats;
+
+import com.google.gson.GsonBuilder;
+
+import jdk.jfr.*;
+
+import java.io.IOException;
+import java.lang.management.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Timings and counters of one analyzed tree, written as a sidecar next to the report so the
+ * report itself stays deterministic. Parse counters are updated concurrently by the workers.
+ * <p>
+ * The same data is emitted as JFR events ({@link FileEvent} per source file, {@link PhaseEvent}
+ * per phase), so a recording of a slow run shows which files dominate it.
+ */
+public class ExtractorMetrics {
+
+    public record Phase(String name, long wallMillis, int filesVisited, int filesParsed, int filesSkipped,
+                        long parseFailures, long bytesRead) {}
+
+    /** Time spent in one rule over all workers, and the number of nodes it visited. */
+    public record RuleTiming(String rule, long millis, long visits) {}
+
+    private final String commit;
+    private final long startNanos = System.nanoTime();
+    private final long gcCountBefore;
+    private final long gcMillisBefore;
+    private final List<Phase> phases = new ArrayList<>();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder filesParsed = new LongAdder();
+    private final LongAdder filesSkipped = new LongAdder();
+    private final Map<String, LongAdder> parseFailures = new ConcurrentHashMap<>();
+    private final List<RuleTiming> rules = new ArrayList<>();
+    // Null unless a fact cache served this tree
+    private Integer cacheHits;
+    private Integer cacheMisses;
+
+    public ExtractorMetrics(String commit) {
+        this.commit = commit;
+        // Peaks are tracked per run, so batch runs report each commit on its own
+        ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .forEach(MemoryPoolMXBean::resetPeakUsage);
+        gcCountBefore = gcTotal(GarbageCollectorMXBean::getCollectionCount);
+        gcMillisBefore = gcTotal(GarbageCollectorMXBean::getCollectionTime);
+    }
+
+    void recordBytesRead(long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    void recordParsed() {
+        filesParsed.increment();
+    }
+
+    void recordSkipped() {
+        filesSkipped.increment();
+    }
+
+    void recordParseFailure(String cause) {
+        parseFailures.computeIfAbsent(cause, k -> new LongAdder()).increment();
+    }
+
+    void recordFactCache(int hits, int misses) {
+        cacheHits = hits;
+        cacheMisses = misses;
+    }
+
+    void recordRule(String rule, long nanos, long visits) {
+        rules.add(new RuleTiming(rule, nanos / 1_000_000, visits));
+    }
+
+    public int filesParsed() {
+        return filesParsed.intValue();
+    }
+
+    public int filesSkipped() {
+        return filesSkipped.intValue();
+    }
+
+    public Map<String, Long> parseFailures() {
+        Map<String, Long> failures = new TreeMap<>();
+        parseFailures.forEach((cause, count) -> failures.put(cause, count.sum()));
+        return failures;
+    }
+
+    public List<Phase> phases() {
+        return Collections.unmodifiableList(phases);
+    }
+
+    /** Starts timing a phase; counters recorded until {@link PhaseTimer#end} are attributed to it. */
+    PhaseTimer startPhase(String name) {
+        return new PhaseTimer(name);
+    }
+
+    class PhaseTimer {
+        private final String name;
+        private final long start = System.nanoTime();
+        private final long bytesBefore = bytesRead.sum();
+        private final int parsedBefore = filesParsed();
+        private final int skippedBefore = filesSkipped();
+        private final long failuresBefore = totalFailures();
+        private final PhaseEvent event = new PhaseEvent();
+
+        private PhaseTimer(String name) {
+            this.name = name;
+            event.begin();
+        }
+
+        Phase end(int filesVisited) {
+            Phase phase = new Phase(name, (System.nanoTime() - start) / 1_000_000, filesVisited,
+                filesParsed() - parsedBefore, filesSkipped() - skippedBefore, totalFailures() - failuresBefore, bytesRead.sum() - bytesBefore);
+            phases.add(phase);
+
+            event.phase = name;
+            event.filesVisited = phase.filesVisited();
+            event.filesParsed = phase.filesParsed();
+            event.filesSkipped = phase.filesSkipped();
+            event.bytesRead = phase.bytesRead();
+            event.commit();
+            return phase;
+        }
+    }
+
+    private long totalFailures() {
+        return parseFailures.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /** Prints the summary and writes the sidecar; call once, after the last phase. */
+    public void finish(Path metricsFile) throws IOException {
+        long totalMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        long peakHeap = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .mapToLong(pool -> pool.getPeakUsage().getUsed())
+            .sum();
+        long gcCount = gcTotal(GarbageCollectorMXBean::getCollectionCount) - gcCountBefore;
+        long gcMillis = gcTotal(GarbageCollectorMXBean::getCollectionTime) - gcMillisBefore;
+
+        System.out.println("\n=== METRICS ===");
+        for (Phase phase : phases) {
+            System.out.printf("%-9s %6d ms  %d files visited, %d parsed, %d skipped, %d bytes read%n",
+                phase.name(), phase.wallMillis(), phase.filesVisited(), phase.filesParsed(), phase.filesSkipped(),
+                phase.bytesRead());
+        }
+        for (RuleTiming rule : rules) {
+            System.out.printf("  rule %-28s %6d ms  %d nodes visited%n", rule.rule(), rule.millis(), rule.visits());
+        }
+        parseFailures().forEach((cause, count) -> System.out.println("Parse failures (" + cause + "): " + count));
+        System.out.println("Peak heap: " + peakHeap / (1024 * 1024) + " MB, GC: " + gcCount + " collections, " + gcMillis + " ms");
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("commit", commit);
+        json.put("totalMillis", totalMillis);
+        json.put("filesParsed", filesParsed());
+        json.put("filesSkipped", filesSkipped());
+        json.put("bytesRead", bytesRead.sum());
+        json.put("parseFailures", parseFailures());
+        if (cacheHits != null) {
+            json.put("factCacheHits", cacheHits);
+            json.put("factCacheMisses", cacheMisses);
+        }
+        json.put("peakHeapBytes", peakHeap);
+        json.put("gcCount", gcCount);
+        json.put("gcMillis", gcMillis);
+        json.put("phases", phases);
+        json.put("rules", rules);
+        Files.writeString(metricsFile, new GsonBuilder().setPrettyPrinting().create().toJson(json));
+        System.out.println("Metrics written to: " + metricsFile);
+    }
+
+    /** Sidecar path of a report: {@code violations.json} (or {@code .json.gz}) to {@code violations.metrics.json}. */
+    static Path sidecarOf(Path outputPath) {
+        String name = outputPath.getFileName().toString();
+        if (name.endsWith(".gz")) name = name.substring(0, name.length() - 3);
+        if (name.endsWith(".json")) name = name.substring(0, name.length() - 5);
+        return outputPath.resolveSibling(name + ".metrics.json");
+    }
+
+    private static long gcTotal(ToLongFunction<GarbageCollectorMXBean> value) {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+            .mapToLong(value)
+            .filter(v -> v > 0)
+            .sum();
+    }
+
+    @Name("de.tum.cit.aet.codestats.SourceFile")
+    @Label("Source File")
+    @Category("Codestats")
+    @Description("Reading, hashing and summarizing one source file")
+    static class FileEvent extends Event {
+        @Label("Path")
+        String path;
+
+        @Label("Bytes Read")
+        @DataAmount
+        long bytes;
+
+        @Label("Parsed")
+        boolean parsed;
+
+        @Label("Skipped by Pre-filter")
+        boolean skipped;
+
+        @Label("Failure")
+        String failure;
+    }
+
+    @Name("de.tum.cit.aet.codestats.Phase")
+    @Label("Extractor Phase")
+    @Category("Codestats")
+    static class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Files Visited")
+        int filesVisited;
+
+        @Label("Files Parsed")
+        int filesParsed;
+
+        @Label("Files Skipped")
+        int filesSkipped;
+
+        @Label("Bytes Read")
+        @DataAmount
+        long bytesRead;
+    }
+}
@@ -0,0 +1,177 @@
+package de.tum.cit.aet.codestats;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persistent, content-addressed cache of per-file facts.
+ * Entries are keyed by the git blob SHA-1 of the file content, so a file is only parsed again
+ * when its content changes. The cache stores {@link FileSummary} facts rather than violations:
+ * violations depend on the project-wide entity set and are always recomputed.
+ * The whole cache is dropped when the summarizer logic changes (see {@link #VERSION}), and when
+ * the pre-filter is switched, since pre-filtered files are cached as summaries without types.
+ * Saving keeps only the blobs looked up during this run, so the file holds the facts of the
+ * analyzed trees instead of every blob ever seen.
+ */
+public class FactCache {
+
+    /**
+     * Stamp of the fact extraction logic: a hash over the bytecode of the summarizer, the
+     * pre-filter, the skeleton stripper and the summary types, plus the JavaParser version. Any change to those invalidates old entries.
+     */
+    static final String VERSION = computeVersion();
+
+    private final Path cacheFile;
+    private final String version;
+    private final Map<String, FileSummary> entries = new ConcurrentHashMap<>();
+    private final Set<String> unparseable = ConcurrentHashMap.newKeySet();
+    // Blobs looked up since loading; all others are dropped on save
+    private final Set<String> used = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    private FactCache(Path cacheFile, boolean prefilter) {
+        this.cacheFile = cacheFile;
+        this.version = prefilter ? VERSION + "+prefilter" : VERSION;
+    }
+
+    /** A cache that lives only as long as this JVM, e.g. to share facts between commits of a batch. */
+    public static FactCache inMemory() {
+        return new FactCache(null, true);
+    }
+
+    /**
+     * Loads the cache from {@code cacheFile}, starting empty if it is missing, unreadable or stale,
+     * or was written with the pre-filter switched the other way than {@code prefilter}.
+     */
+    public static FactCache load(Path cacheFile, boolean prefilter) {
+        FactCache cache = new FactCache(cacheFile, prefilter);
+        if (!Files.exists(cacheFile)) return cache;
+
+        try (Reader reader = new InputStreamReader(
+                new GZIPInputStream(new BufferedInputStream(Files.newInputStream(cacheFile))), StandardCharsets.UTF_8)) {
+            CacheFile stored = new Gson().fromJson(reader, CacheFile.class);
+            if (stored == null || !cache.version.equals(stored.version)) {
+                System.out.println("Fact cache is stale, rebuilding: " + cacheFile);
+                return cache;
+            }
+            cache.entries.putAll(stored.entries);
+            cache.unparseable.addAll(stored.unparseable);
+        } catch (IOException | JsonParseException e) {
+            System.err.println("WARNING: Ignoring unreadable fact cache " + cacheFile + ": " + e.getMessage());
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the facts for the given blob, summarizing it only if it is not cached yet.
+     * Cached facts are re-labelled with {@code relativePath}, since identical content may live
+     * at several paths. Empty if the blob could not be parsed.
+     */
+    public Optional<FileSummary> computeIfAbsent(String blobSha, String relativePath,
+                                                 Supplier<Optional<FileSummary>> summarize) {
+        used.add(blobSha);
+        FileSummary cached = entries.get(blobSha);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Optional.of(cached.relativePath().equals(relativePath) ? cached : cached.withRelativePath(relativePath));
+        }
+        if (unparseable.contains(blobSha)) {
+            hits.incrementAndGet();
+            return Optional.empty();
+        }
+
+        misses.incrementAndGet();
+        Optional<FileSummary> summary = summarize.get();
+        summary.ifPresentOrElse(s -> entries.put(blobSha, s), () -> unparseable.add(blobSha));
+        return summary;
+    }
+
+    public int hits() {
+        return hits.get();
+    }
+
+    public int misses() {
+        return misses.get();
+    }
+
+    /** Writes the facts of the blobs used in this run back to the file; a no-op for in-memory caches. */
+    public void save() throws IOException {
+        if (cacheFile == null) return;
+        Path parent = cacheFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+
+        CacheFile stored = new CacheFile();
+        stored.version = version;
+        entries.forEach((blobSha, summary) -> {
+            if (used.contains(blobSha)) stored.entries.put(blobSha, summary);
+        });
+        for (String blobSha : unparseable) {
+            if (used.contains(blobSha)) stored.unparseable.add(blobSha);
+        }
+        int dropped = entries.size() + unparseable.size() - stored.entries.size() - stored.unparseable.size();
+        if (dropped > 0) System.out.println("Fact cache: dropped " + dropped + " entries unused in this run");
+
+        // Write to a sibling file first so an interrupted run never leaves a truncated cache
+        Path tmp = Files.createTempFile(parent, "facts", ".tmp");
+        try (Writer writer = new OutputStreamWriter(
+                new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp))), StandardCharsets.UTF_8)) {
+            new Gson().toJson(stored, writer);
+        }
+        Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Git blob id of {@code content}: SHA-1 over {@code "blob <length>\0"} followed by the bytes. */
+    public static String blobSha(byte[] content) {
+        MessageDigest digest = sha1();
+        digest.update(("blob " + content.length + "\0").getBytes(StandardCharsets.US_ASCII));
+        return HexFormat.of().formatHex(digest.digest(content));
+    }
+
+    private static String computeVersion() {
+        MessageDigest digest = sha1();
+        List<Class<?>> classes = new ArrayList<>(List.of(SourceSummarizer.class, SourceMarkers.class, SourceSkeleton.class, FileSummary.class));
+        classes.addAll(List.of(FileSummary.class.getDeclaredClasses()));
+        classes.sort(Comparator.comparing(Class::getName));
+        for (Class<?> cls : classes) {
+            String resource = cls.getName().substring(cls.getPackageName().length() + 1) + ".class";
+            try (InputStream in = cls.getResourceAsStream(resource)) {
+                if (in != null) digest.update(in.readAllBytes());
+            } catch (IOException e) {
+                // Fall back to the class name only
+            }
+            digest.update(cls.getName().getBytes(StandardCharsets.UTF_8));
+        }
+        String parserVersion = Objects.toString(
+            com.github.javaparser.JavaParser.class.getPackage().getImplementationVersion(), "unknown");
+        digest.update(parserVersion.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest()).substring(0, 16);
+    }
+
+    private static MessageDigest sha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+
+    /** On-disk layout of the cache. */
+    private static class CacheFile {
+        String version;
+        Map<String, FileSummary> entries = new TreeMap<>();
+        Set<String> unparseable = new TreeSet<>();
+    }
+}
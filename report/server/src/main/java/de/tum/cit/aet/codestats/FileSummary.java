@@ -0,0 +1,150 @@
+package de.tum.cit.aet.codestats;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Compact, AST-free summary of a single Java source file.
+ * Holds exactly the facts the violation checks need, so every file is parsed once
+ * and all analysis phases run over these summaries in memory.
+ * <p>
+ * {@code imports} lists imported names, on-demand imports ending in ".*". {@code declaredTypes}
+ * lists every type the file declares (enums and annotations included, nested ones as
+ * "Outer.Inner"), so references can be resolved against the whole project.
+ * <p>
+ * All names are interned and all collections immutable copies, however the summary was built
+ * (parsed or read from the {@link FactCache}): a large tree repeats the same package, annotation
+ * and type names in thousands of files, and each is kept once.
+ */
+public record FileSummary(
+    String relativePath,
+    String packageName,
+    List<String> imports,
+    List<String> declaredTypes,
+    List<TypeSummary> types
+) {
+    public FileSummary {
+        relativePath = relativePath.intern();
+        packageName = packageName.intern();
+        imports = intern(imports);
+        declaredTypes = intern(declaredTypes);
+        types = List.copyOf(types);
+    }
+
+    private static String intern(String name) {
+        return name == null ? null : name.intern();
+    }
+
+    private static List<String> intern(List<String> names) {
+        return names.stream().map(String::intern).toList();
+    }
+
+    private static Set<String> internAll(Collection<String> names) {
+        return names.stream().map(String::intern).collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Summary of a file skipped by the pre-filter: it declares nothing any check looks at.
+     * Its package and public top-level type are taken from the path, following the usual
+     * one-type-per-file layout, so the file still shadows names for type resolution.
+     */
+    public static FileSummary withoutTypes(String relativePath) {
+        int slash = relativePath.lastIndexOf('/');
+        String packageName = slash > 0 ? relativePath.substring(0, slash).replace('/', '.') : "";
+        String typeName = relativePath.substring(slash + 1).replaceFirst("\\.java$", "");
+        return new FileSummary(relativePath, packageName, List.of(), List.of(typeName), List.of());
+    }
+
+    /** Returns the same facts for a file with identical content at another path. */
+    public FileSummary withRelativePath(String relativePath) {
+        return new FileSummary(relativePath, packageName, imports, declaredTypes, types);
+    }
+
+    /** Kind of a declared type; records are tracked separately from classes and interfaces. */
+    public enum TypeKind { CLASS, RECORD }
+
+    /**
+     * A class, interface or record declared anywhere in the file (including nested types),
+     * in source order: all classes/interfaces first, then all records. {@code nestedName} is the
+     * name within the package, e.g. "Outer.Inner"; for top-level types it equals {@code name}.
+     * {@code superclass} is the extended class as written, without type arguments, or null for
+     * classes without {@code extends}, interfaces and records. {@code fields} are only summarized
+     * for DTOs and controllers.
+     */
+    public record TypeSummary(
+        String name,
+        String nestedName,
+        TypeKind kind,
+        String superclass,
+        Set<String> annotations,
+        String requestMappingPath,
+        List<EndpointSummary> endpoints,
+        List<FieldSummary> fields
+    ) {
+        public TypeSummary {
+            name = intern(name);
+            nestedName = intern(nestedName);
+            superclass = intern(superclass);
+            annotations = internAll(annotations);
+            requestMappingPath = intern(requestMappingPath);
+            endpoints = List.copyOf(endpoints);
+            fields = List.copyOf(fields);
+        }
+
+        public boolean hasAnnotation(String annotationName) {
+            return annotations.contains(annotationName);
+        }
+    }
+
+    /** A method carrying one of the REST mapping annotations. */
+    public record EndpointSummary(
+        String name,
+        String httpMethod,
+        String path,
+        int line,
+        Set<String> annotations,
+        TypeRef returnType,
+        List<ParameterSummary> parameters
+    ) {
+        public EndpointSummary {
+            name = intern(name);
+            httpMethod = intern(httpMethod);
+            path = intern(path);
+            annotations = internAll(annotations);
+            parameters = List.copyOf(parameters);
+        }
+
+        public boolean hasAnnotation(String annotationName) {
+            return annotations.contains(annotationName);
+        }
+    }
+
+    /** A method parameter; {@code bodyAnnotation} is "@RequestBody", "@RequestPart" or null. */
+    public record ParameterSummary(String name, TypeRef type, String bodyAnnotation) {
+        public ParameterSummary {
+            name = intern(name);
+            bodyAnnotation = intern(bodyAnnotation);
+        }
+    }
+
+    /** A field variable or record component. */
+    public record FieldSummary(String name, TypeRef type, int line) {
+        public FieldSummary {
+            name = intern(name);
+        }
+    }
+
+    /**
+     * A type as written in source, reduced to its display string and the names of all
+     * class or interface types referenced in it (type arguments, array components and
+     * wildcard bounds included). Names keep their written scope, e.g. "Map.Entry".
+     */
+    public record TypeRef(String text, List<String> referencedNames) {
+        public TypeRef {
+            text = intern(text);
+            referencedNames = intern(referencedNames);
+        }
+    }
+}
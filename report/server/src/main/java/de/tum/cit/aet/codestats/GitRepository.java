@@ -0,0 +1,188 @@
+package de.tum.cit.aet.codestats;
+
+import de.tum.cit.aet.codestats.SourceTree.SourceFile;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Read-only access to the object store of a local git repository.
+ * Blob contents are streamed through one long-lived {@code git cat-file --batch} process that is
+ * shared by every commit read through this instance.
+ */
+public class GitRepository implements AutoCloseable {
+
+    private final Path repoRoot;
+    private final String sourcePrefix;
+
+    private Process catFile;
+    private OutputStream catFileIn;
+    private InputStream catFileOut;
+
+    /**
+     * @param sourceDir directory inside the repository's working tree whose layout defines the
+     *                  relative paths, e.g. {@code artemis/src/main/java}
+     */
+    public GitRepository(Path sourceDir) throws IOException {
+        this.repoRoot = Path.of(git(sourceDir, "rev-parse", "--show-toplevel").trim());
+        this.sourcePrefix = git(sourceDir, "rev-parse", "--show-prefix").trim();
+    }
+
+    /** The source directory this repository was opened with. */
+    Path sourceDir() {
+        return repoRoot.resolve(sourcePrefix);
+    }
+
+    /** Resolves any commit-ish to a full commit id. */
+    public String resolveCommit(String commit) throws IOException {
+        return git(repoRoot, "rev-parse", "--verify", commit + "^{commit}").trim();
+    }
+
+    /** The sources of {@code commit}, sharing this repository's reader. */
+    public GitSourceTree tree(String commit) throws IOException {
+        return new GitSourceTree(this, resolveCommit(commit));
+    }
+
+    /** The prefix of the source directory relative to the repository root, empty or ending in {@code /}. */
+    String sourcePrefix() {
+        return sourcePrefix;
+    }
+
+    /** The prefix of {@code directory}, given relative to the directory with prefix {@code prefix}. */
+    static String resolvePrefix(String prefix, String directory) throws IOException {
+        String resolved = Path.of(prefix).resolve(directory).normalize().toString().replace('\\', '/');
+        if (resolved.startsWith("..")) throw new IOException(directory + " is outside the repository");
+        return resolved.isEmpty() ? "" : resolved + "/";
+    }
+
+    /** Lists the {@code .java} blobs below the directory with prefix {@code prefix} at {@code commit}, sorted by path. */
+    List<SourceFile> listJavaFiles(String commit, String prefix) throws IOException {
+        // <mode> SP <type> SP <sha> TAB <path> NUL, paths relative to the repository root
+        String listing = prefix.isEmpty()
+            ? git(repoRoot, "ls-tree", "-r", "-z", "--full-tree", commit)
+            : git(repoRoot, "ls-tree", "-r", "-z", "--full-tree", commit, "--", prefix);
+        List<SourceFile> files = new ArrayList<>();
+        for (String entry : listing.split("\0")) {
+            int tab = entry.indexOf('\t');
+            if (tab < 0) continue;
+
+            String[] meta = entry.substring(0, tab).split(" ");
+            String path = entry.substring(tab + 1);
+            if (!meta[1].equals("blob") || !path.endsWith(".java")) continue;
+
+            files.add(new SourceFile(path.substring(prefix.length()), meta[2]));
+        }
+        files.sort(Comparator.comparing(SourceFile::relativePath));
+        return files;
+    }
+
+    /** A {@code .java} file that differs between two commits; a blob is null on the side without the file. */
+    record FileChange(String relativePath, String oldBlobSha, String newBlobSha) {}
+
+    /** Lists the {@code .java} files below the source directory that differ between {@code from} and {@code to}. */
+    List<FileChange> changedJavaFiles(String from, String to) throws IOException {
+        return changedJavaFiles(from, to, sourcePrefix);
+    }
+
+    /** Like {@link #changedJavaFiles(String, String)}, below the directory with prefix {@code prefix}. */
+    List<FileChange> changedJavaFiles(String from, String to, String prefix) throws IOException {
+        // :<old mode> SP <new mode> SP <old sha> SP <new sha> SP <status> NUL <path> NUL, paths relative to the repository root
+        String diff = prefix.isEmpty()
+            ? git(repoRoot, "diff-tree", "-r", "-z", "--no-renames", from, to)
+            : git(repoRoot, "diff-tree", "-r", "-z", "--no-renames", from, to, "--", prefix);
+        List<FileChange> changes = new ArrayList<>();
+        String[] fields = diff.split("\0");
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            String[] meta = fields[i].split(" ");
+            String path = fields[i + 1];
+            if (meta.length < 5 || !path.endsWith(".java")) continue;
+
+            changes.add(new FileChange(path.substring(prefix.length()), blobOrNull(meta[2]), blobOrNull(meta[3])));
+        }
+        return changes;
+    }
+
+    /** Git writes an all-zero id for the missing side of an added or deleted file. */
+    private static String blobOrNull(String sha) {
+        return sha.chars().allMatch(c -> c == '0') ? null : sha;
+    }
+
+    /** Reads the content of a blob. Safe to call from several threads. */
+    synchronized byte[] readBlob(String blobSha) throws IOException {
+        if (catFile == null) {
+            catFile = new ProcessBuilder("git", "cat-file", "--batch")
+                .directory(repoRoot.toFile())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+            catFileIn = new BufferedOutputStream(catFile.getOutputStream());
+            catFileOut = new BufferedInputStream(catFile.getInputStream());
+        }
+
+        catFileIn.write((blobSha + "\n").getBytes(StandardCharsets.US_ASCII));
+        catFileIn.flush();
+
+        // <sha> SP <type> SP <size> LF <content> LF, or "<sha> missing" LF
+        String[] header = readLine(catFileOut).split(" ");
+        if (header.length != 3) {
+            throw new IOException("git cat-file could not read " + String.join(" ", header));
+        }
+        byte[] content = catFileOut.readNBytes(Integer.parseInt(header[2]));
+        catFileOut.read();
+        return content;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (catFile == null) return;
+        catFileIn.close();
+        try {
+            catFile.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            catFile.destroy();
+        }
+        catFile = null;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        for (int b = in.read(); b != '\n'; b = in.read()) {
+            if (b < 0) throw new EOFException("git cat-file terminated unexpectedly");
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    /** The committer date of {@code commit} in UTC, e.g. {@code 2026-01-02T22:10:32Z}. */
+    static String commitDate(Path dir, String commit) throws IOException {
+        return utc(git(dir, "show", "-s", "--format=%cI", commit).trim());
+    }
+
+    /** Normalizes git's ISO 8601 dates with offset and JavaScript's {@code toISOString()} to one form. */
+    static String utc(String date) {
+        return OffsetDateTime.parse(date).toInstant().toString();
+    }
+
+    static String git(Path dir, String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command)
+            .directory(dir.toFile())
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+        byte[] output = process.getInputStream().readAllBytes();
+        try {
+            if (process.waitFor() != 0) {
+                throw new IOException("Command failed: " + String.join(" ", command));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running: " + String.join(" ", command), e);
+        }
+        return new String(output, StandardCharsets.UTF_8);
+    }
+}
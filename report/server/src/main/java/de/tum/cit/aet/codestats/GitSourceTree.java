@@ -0,0 +1,50 @@
+package de.tum.cit.aet.codestats;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Source files of one commit, read straight from the git object store without checking anything out.
+ * The file listing comes from {@code git ls-tree}; contents come from the repository's shared
+ * {@code git cat-file --batch} reader.
+ */
+public class GitSourceTree implements SourceTree {
+
+    private final GitRepository repository;
+    private final String commit;
+    private final String prefix;
+
+    GitSourceTree(GitRepository repository, String commit) {
+        this(repository, commit, repository.sourcePrefix());
+    }
+
+    private GitSourceTree(GitRepository repository, String commit, String prefix) {
+        this.repository = repository;
+        this.commit = commit;
+        this.prefix = prefix;
+    }
+
+    GitRepository repository() {
+        return repository;
+    }
+
+    @Override
+    public String commit() {
+        return commit;
+    }
+
+    @Override
+    public List<SourceFile> files() throws IOException {
+        return repository.listJavaFiles(commit, prefix);
+    }
+
+    @Override
+    public GitSourceTree sibling(String directory) throws IOException {
+        return new GitSourceTree(repository, commit, GitRepository.resolvePrefix(prefix, directory));
+    }
+
+    @Override
+    public byte[] read(SourceFile file) throws IOException {
+        return repository.readBlob(file.blobSha());
+    }
+}
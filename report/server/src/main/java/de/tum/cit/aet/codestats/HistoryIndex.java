@@ -0,0 +1,357 @@
+package de.tum.cit.aet.codestats;
+
+import de.tum.cit.aet.codestats.Violation.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * In-memory index over every violation in a {@link ViolationHistory}.
+ * <p>
+ * Each distinct violation is stored once, as a row with the commit ranges in which it is present,
+ * instead of once per commit; a violation unchanged over a thousand commits costs one row and
+ * one range. Rows are kept in report order (module, kind, then canonical order) and listed by
+ * module, controller and entity class, so a query walks the shortest of those lists and never
+ * sorts. Only the three DTO checks are indexed; rule findings stay in the history.
+ * <p>
+ * Commits are indexed in the history's commit date order, so commit indexes, and the spans
+ * between them, follow time.
+ * <p>
+ * The index is immutable once built and safe to query from several threads.
+ */
+final class HistoryIndex {
+
+    /** The report section a violation comes from, named like its JSON section without {@code Details}. */
+    enum Kind {
+        ENTITY_RETURN("entityReturn"), ENTITY_INPUT("entityInput"), DTO_ENTITY_FIELD("dtoEntityField");
+
+        final String id;
+
+        Kind(String id) {
+            this.id = id;
+        }
+
+        static Kind of(String id) {
+            for (Kind kind : values()) {
+                if (kind.id.equals(id)) return kind;
+            }
+            throw new IllegalArgumentException("Unknown kind: " + id + " (expected entityReturn, entityInput or dtoEntityField)");
+        }
+    }
+
+    /**
+     * A violation and the commits in which it is present: {@code spans} holds pairs of commit
+     * indexes, each from the first commit with the violation to the first one without it
+     * ({@link #commitCount()} if it is still present).
+     */
+    record Row(Kind kind, String module, Violation violation, int[] spans) {
+        /** The controller, or the DTO class for {@link Kind#DTO_ENTITY_FIELD}. */
+        String controller() {
+            if (violation instanceof EntityReturn v) return v.controller();
+            if (violation instanceof EntityInput v) return v.controller();
+            return ((DtoEntityField) violation).dtoClass();
+        }
+
+        boolean presentAt(int commit) {
+            for (int s = 0; s < spans.length; s += 2) {
+                if (commit < spans[s]) return false;
+                if (commit < spans[s + 1]) return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A violation over time regardless of the line it is on, so edits above it do not split its
+     * history; {@code violation} is its latest form and {@code spans} are as in {@link Row}.
+     */
+    record Timeline(Kind kind, String module, Violation violation, int[] spans) {}
+
+    /** Restricts queries; null components match everything. */
+    record Filter(String module, String controller, String entity, Kind kind) {
+        boolean matches(Row row) {
+            return (module == null || module.equals(row.module()))
+                && (controller == null || controller.equals(row.controller()))
+                && (entity == null || entity.equals(row.violation().entityClass()))
+                && (kind == null || kind == row.kind());
+        }
+    }
+
+    private final List<String> commits;
+    private final List<String> dates;
+    private final Map<String, Integer> commitIndexes = new HashMap<>();
+    private final List<Row> rows;
+    private final Map<String, int[]> rowsByModule;
+    private final Map<String, int[]> rowsByController;
+    private final Map<String, int[]> rowsByEntity;
+    /** Direct and transitive violations per commit and kind, counted apart like in the report. */
+    private final int[][] totals;
+    private final int[][] transitiveTotals;
+
+    private HistoryIndex(List<String> commits, List<String> dates, List<Row> rows, int[][] totals, int[][] transitiveTotals) {
+        this.commits = List.copyOf(commits);
+        this.dates = Collections.unmodifiableList(new ArrayList<>(dates));
+        for (int i = 0; i < commits.size(); i++) commitIndexes.put(commits.get(i), i);
+        this.rows = List.copyOf(rows);
+        this.rowsByModule = postings(Row::module);
+        this.rowsByController = postings(Row::controller);
+        this.rowsByEntity = postings(row -> row.violation().entityClass());
+        this.totals = totals;
+        this.transitiveTotals = transitiveTotals;
+    }
+
+    /** Replays {@code history} once and indexes every violation of every commit. */
+    static HistoryIndex build(ViolationHistory history) throws IOException {
+        Builder builder = new Builder();
+        history.replay((entry, report) -> builder.add(entry.commit(), entry.date(), report));
+        return builder.build();
+    }
+
+    /** Identifies a violation across commits; {@code occurrence} tells identical violations in one module apart. */
+    private record Key(Kind kind, String module, Violation violation, int occurrence) {}
+
+    private static final class Builder {
+        private final List<String> commits = new ArrayList<>();
+        private final List<String> dates = new ArrayList<>();
+        private final List<int[]> totals = new ArrayList<>();
+        private final List<int[]> transitiveTotals = new ArrayList<>();
+        private final Map<Key, List<Integer>> spans = new HashMap<>();
+        // Keys present in the previous commit, whose last span is still open
+        private Set<Key> open = new HashSet<>();
+
+        void add(String commit, String date, ViolationReport report) {
+            int index = commits.size();
+            commits.add(commit);
+            dates.add(date);
+
+            Set<Key> present = new HashSet<>();
+            ViolationCollector violations = report.violations();
+            int[] counts = new int[Kind.values().length];
+            int[] transitiveCounts = new int[Kind.values().length];
+            addAll(present, Kind.ENTITY_RETURN, violations.moduleReturnViolations, counts, transitiveCounts);
+            addAll(present, Kind.ENTITY_INPUT, violations.moduleInputViolations, counts, transitiveCounts);
+            addAll(present, Kind.DTO_ENTITY_FIELD, violations.moduleFieldViolations, counts, transitiveCounts);
+            totals.add(counts);
+            transitiveTotals.add(transitiveCounts);
+
+            for (Key key : present) {
+                if (!open.contains(key)) spans.computeIfAbsent(key, k -> new ArrayList<>()).add(index);
+            }
+            for (Key key : open) {
+                if (!present.contains(key)) spans.get(key).add(index);
+            }
+            open = present;
+        }
+
+        private static void addAll(Set<Key> present, Kind kind, Map<String, ? extends List<? extends Violation>> byModule,
+                                   int[] counts, int[] transitiveCounts) {
+            for (Map.Entry<String, ? extends List<? extends Violation>> module : byModule.entrySet()) {
+                Map<Violation, Integer> occurrences = new HashMap<>();
+                for (Violation violation : module.getValue()) {
+                    int occurrence = occurrences.merge(violation, 1, Integer::sum);
+                    present.add(new Key(kind, module.getKey(), violation, occurrence));
+                    (violation.isDirect() ? counts : transitiveCounts)[kind.ordinal()]++;
+                }
+            }
+        }
+
+        HistoryIndex build() {
+            List<Key> keys = new ArrayList<>(spans.keySet());
+            keys.sort(Comparator.comparing(Key::module)
+                .thenComparing(Key::kind)
+                .thenComparing(Key::violation, ViolationCollector.CANONICAL_ORDER)
+                .thenComparingInt(Key::occurrence));
+
+            List<Row> rows = new ArrayList<>(keys.size());
+            for (Key key : keys) {
+                List<Integer> keySpans = spans.get(key);
+                if (keySpans.size() % 2 == 1) keySpans.add(commits.size());
+                rows.add(new Row(key.kind(), key.module(), key.violation(), keySpans.stream().mapToInt(Integer::intValue).toArray()));
+            }
+            return new HistoryIndex(commits, dates, rows, totals.toArray(new int[0][]), transitiveTotals.toArray(new int[0][]));
+        }
+    }
+
+    private Map<String, int[]> postings(Function<Row, String> field) {
+        Map<String, List<Integer>> lists = new HashMap<>();
+        for (int r = 0; r < rows.size(); r++) {
+            lists.computeIfAbsent(field.apply(rows.get(r)), k -> new ArrayList<>()).add(r);
+        }
+        Map<String, int[]> postings = new HashMap<>();
+        lists.forEach((value, ids) -> postings.put(value, ids.stream().mapToInt(Integer::intValue).toArray()));
+        return postings;
+    }
+
+    List<String> commits() {
+        return commits;
+    }
+
+    /** The commit dates in UTC, parallel to {@link #commits()}; null for commits indexed without one. */
+    List<String> dates() {
+        return dates;
+    }
+
+    int commitCount() {
+        return commits.size();
+    }
+
+    int rowCount() {
+        return rows.size();
+    }
+
+    /** The number of direct violations of {@code kind} in {@code commit}, as counted by the report. */
+    int total(int commit, Kind kind) {
+        return totals[commit][kind.ordinal()];
+    }
+
+    int transitiveTotal(int commit, Kind kind) {
+        return transitiveTotals[commit][kind.ordinal()];
+    }
+
+    /**
+     * The index of {@code commit}, which may be abbreviated as long as it is unambiguous; the
+     * latest commit if null.
+     */
+    int resolve(String commit) {
+        if (commits.isEmpty()) throw new NoSuchElementException("The history is empty");
+        if (commit == null) return commits.size() - 1;
+
+        Integer index = commitIndexes.get(commit);
+        if (index != null) return index;
+        List<Integer> matches = new ArrayList<>();
+        for (int i = 0; i < commits.size(); i++) {
+            if (commits.get(i).startsWith(commit)) matches.add(i);
+        }
+        if (matches.size() != 1) {
+            throw new NoSuchElementException(matches.isEmpty()
+                ? "Commit not in history: " + commit
+                : "Ambiguous commit prefix: " + commit);
+        }
+        return matches.get(0);
+    }
+
+    /** The rows matching {@code filter}, in report order. */
+    List<Row> matching(Filter filter) {
+        List<Row> matching = new ArrayList<>();
+        for (int r : candidates(filter)) {
+            if (filter.matches(rows.get(r))) matching.add(rows.get(r));
+        }
+        return matching;
+    }
+
+    /** The violations of {@code commit} matching {@code filter}, in report order. */
+    List<Row> at(int commit, Filter filter) {
+        List<Row> present = new ArrayList<>();
+        for (int r : candidates(filter)) {
+            Row row = rows.get(r);
+            if (row.presentAt(commit) && filter.matches(row)) present.add(row);
+        }
+        return present;
+    }
+
+    /** The history of every violation matching {@code filter}, in report order of its latest form. */
+    List<Timeline> timelines(Filter filter) {
+        Map<List<Object>, List<Row>> byIdentity = new LinkedHashMap<>();
+        for (Row row : matching(filter)) {
+            byIdentity.computeIfAbsent(List.of(row.kind(), row.module(), withoutLine(row.violation())), k -> new ArrayList<>()).add(row);
+        }
+
+        List<Timeline> timelines = new ArrayList<>();
+        for (List<Row> group : byIdentity.values()) {
+            List<int[]> spans = new ArrayList<>();
+            Row latest = group.get(0);
+            for (Row row : group) {
+                for (int s = 0; s < row.spans().length; s += 2) spans.add(new int[] { row.spans()[s], row.spans()[s + 1] });
+                if (lastCommit(row) > lastCommit(latest)) latest = row;
+            }
+            timelines.add(new Timeline(latest.kind(), latest.module(), latest.violation(), union(spans)));
+        }
+        timelines.sort(Comparator.comparing(Timeline::module)
+            .thenComparing(Timeline::kind)
+            .thenComparing(Timeline::violation, ViolationCollector.CANONICAL_ORDER));
+        return timelines;
+    }
+
+    private static int lastCommit(Row row) {
+        return row.spans()[row.spans().length - 1];
+    }
+
+    private static int[] union(List<int[]> spans) {
+        spans.sort(Comparator.comparingInt(span -> span[0]));
+        List<Integer> merged = new ArrayList<>();
+        for (int[] span : spans) {
+            int last = merged.size() - 1;
+            if (last > 0 && span[0] <= merged.get(last)) {
+                merged.set(last, Math.max(merged.get(last), span[1]));
+            } else {
+                merged.add(span[0]);
+                merged.add(span[1]);
+            }
+        }
+        return merged.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static Violation withoutLine(Violation violation) {
+        if (violation instanceof EntityReturn v) {
+            return new EntityReturn(v.controller(), v.method(), v.endpoint(), v.returnType(), v.entityClass(), v.path(), v.file(), 0);
+        }
+        if (violation instanceof EntityInput v) {
+            return new EntityInput(v.controller(), v.method(), v.endpoint(), v.parameterName(), v.parameterType(),
+                v.annotationType(), v.entityClass(), v.path(), v.file(), 0);
+        }
+        DtoEntityField v = (DtoEntityField) violation;
+        return new DtoEntityField(v.dtoClass(), v.fieldName(), v.fieldType(), v.entityClass(), v.path(), v.file(), 0);
+    }
+
+    /** The number of violations matching {@code filter} in every commit. */
+    int[] trend(Filter filter) {
+        if (filter.module() == null && filter.controller() == null && filter.entity() == null) {
+            int[] counts = new int[commits.size()];
+            for (int c = 0; c < counts.length; c++) {
+                for (Kind kind : Kind.values()) {
+                    if (filter.kind() == null || filter.kind() == kind) {
+                        counts[c] += totals[c][kind.ordinal()] + transitiveTotals[c][kind.ordinal()];
+                    }
+                }
+            }
+            return counts;
+        }
+
+        // Count span boundaries, then sum them up
+        int[] changes = new int[commits.size() + 1];
+        for (Row row : matching(filter)) {
+            for (int s = 0; s < row.spans().length; s += 2) {
+                changes[row.spans()[s]]++;
+                changes[row.spans()[s + 1]]--;
+            }
+        }
+        int[] counts = new int[commits.size()];
+        int count = 0;
+        for (int c = 0; c < counts.length; c++) {
+            count += changes[c];
+            counts[c] = count;
+        }
+        return counts;
+    }
+
+    /** The shortest posting list that can contain all matches of {@code filter}. */
+    private int[] candidates(Filter filter) {
+        int[] shortest = null;
+        for (int[] postings : new int[][] {
+                lookup(rowsByModule, filter.module()),
+                lookup(rowsByController, filter.controller()),
+                lookup(rowsByEntity, filter.entity()) }) {
+            if (postings != null && (shortest == null || postings.length < shortest.length)) shortest = postings;
+        }
+        if (shortest != null) return shortest;
+
+        int[] all = new int[rows.size()];
+        for (int r = 0; r < all.length; r++) all[r] = r;
+        return all;
+    }
+
+    private static int[] lookup(Map<String, int[]> postings, String value) {
+        return value == null ? null : postings.getOrDefault(value, new int[0]);
+    }
+}
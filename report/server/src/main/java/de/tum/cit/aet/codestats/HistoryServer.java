@@ -0,0 +1,319 @@
+package de.tum.cit.aet.codestats;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.tum.cit.aet.codestats.HistoryIndex.Filter;
+import de.tum.cit.aet.codestats.HistoryIndex.Kind;
+import de.tum.cit.aet.codestats.HistoryIndex.Row;
+import de.tum.cit.aet.codestats.HistoryIndex.Timeline;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP service answering questions about a {@link ViolationHistory} without downloading
+ * any snapshot, e.g. when {@code CourseResource} started returning {@code Course}:
+ * <pre>
+ *   java -cp ... de.tum.cit.aet.codestats.HistoryServer &lt;historyDir&gt; [port]
+ *   curl 'localhost:8080/timeline?controller=CourseResource&amp;entity=Course'
+ * </pre>
+ * The history is loaded once into a {@link HistoryIndex}. All endpoints answer GET with JSON:
+ * <ul>
+ *   <li>{@code /commits}: every commit, oldest first, with its date, its direct totals as in the
+ *       report and the number of transitive violations</li>
+ *   <li>{@code /violations?commit=}: the violations of one commit (the latest by default)</li>
+ *   <li>{@code /trend}: the number of matching violations, direct and transitive, in every commit</li>
+ *   <li>{@code /timeline}: every matching violation with the commit ranges it was present in</li>
+ * </ul>
+ * {@code module}, {@code controller} (the DTO class for DTO fields), {@code entity} and
+ * {@code kind} ({@code entityReturn}, {@code entityInput}, {@code dtoEntityField}) filter all but
+ * {@code /commits}; lists are paged with {@code offset} and {@code limit}. Commits may be
+ * abbreviated. Responses are cached per endpoint, commit and filter, evicting the least recently
+ * used once {@code server.cacheSize} (default 256) responses are held.
+ */
+public final class HistoryServer {
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+    private static final List<String> ENDPOINTS = List.of("/commits", "/violations", "/trend", "/timeline");
+
+    private final HistoryIndex index;
+    private final ResponseCache cache;
+
+    HistoryServer(HistoryIndex index, int cacheSize) {
+        this.index = index;
+        this.cache = new ResponseCache(cacheSize);
+    }
+
+    /** A parsed request; equal queries have equal responses, so queries are the cache keys. */
+    private record Query(String endpoint, int commit, Filter filter, int offset, int limit) {}
+
+    /** Keeps the most recently used responses; safe to use from the handler threads. */
+    private static final class ResponseCache {
+        private final int capacity;
+        // In access order, so the eldest entry is the least recently used
+        private final LinkedHashMap<Query, byte[]> responses = new LinkedHashMap<>(16, 0.75f, true);
+
+        ResponseCache(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized byte[] get(Query query) {
+            return responses.get(query);
+        }
+
+        synchronized void put(Query query, byte[] response) {
+            responses.put(query, response);
+            Iterator<byte[]> eldest = responses.values().iterator();
+            while (responses.size() > capacity) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: HistoryServer <historyDir> [port]");
+            System.exit(1);
+        }
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+
+        long start = System.nanoTime();
+        ViolationHistory history = ViolationHistory.open(Path.of(args[0]), ViolationHistory.DEFAULT_KEYFRAME_INTERVAL);
+        if (history.entries().isEmpty()) {
+            System.err.println("ERROR: No history in " + args[0]);
+            System.exit(1);
+        }
+        long undated = history.entries().stream().filter(entry -> entry.date() == null).count();
+        if (undated > 0) {
+            System.err.println("WARNING: " + undated + " commits were recorded without a date "
+                + "and are served in the order they were appended");
+        }
+        HistoryIndex index = HistoryIndex.build(history);
+        System.out.println("Indexed " + index.commitCount() + " commits, " + index.rowCount() + " distinct violations in "
+            + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        new HistoryServer(index, Integer.getInteger("server.cacheSize", 256)).start(port);
+        System.out.println("Serving " + args[0] + " on http://localhost:" + port + "/");
+    }
+
+    /** Serves on {@code port} of the loopback interface until the JVM exits. */
+    void start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        // One context for every path, so unknown endpoints get a JSON error from parse() too
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors())));
+        server.start();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                serve(exchange);
+            } catch (RuntimeException e) {
+                System.err.println("ERROR: " + exchange.getRequestURI() + ": " + e);
+                // Nothing has been sent yet, since responding is the last step
+                respond(exchange, 500, error("Internal error: " + e.getMessage()), null);
+            }
+        }
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            respond(exchange, 405, error("Only GET is supported"), null);
+            return;
+        }
+
+        Query query;
+        try {
+            query = parse(exchange.getRequestURI().getPath(), exchange.getRequestURI().getRawQuery());
+        } catch (NoSuchElementException e) {
+            respond(exchange, 404, error(e.getMessage()), null);
+            return;
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, error(e.getMessage()), null);
+            return;
+        }
+
+        byte[] body = cache.get(query);
+        boolean hit = body != null;
+        if (!hit) {
+            body = GSON.toJson(answer(query)).getBytes(StandardCharsets.UTF_8);
+            cache.put(query, body);
+        }
+        respond(exchange, 200, body, hit ? "HIT" : "MISS");
+    }
+
+    private Query parse(String path, String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                if (pair.isEmpty()) continue;
+                int eq = pair.indexOf('=');
+                String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+                String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                if (!value.isEmpty()) params.put(name, value);
+            }
+        }
+
+        String endpoint = path.replaceAll("/+$", "");
+        if (!ENDPOINTS.contains(endpoint)) throw new NoSuchElementException("Unknown endpoint: " + path);
+        if (endpoint.equals("/commits")) return new Query(endpoint, -1, null, 0, 0);
+
+        String kind = params.get("kind");
+        Filter filter = new Filter(params.get("module"), params.get("controller"), params.get("entity"),
+            kind != null ? Kind.of(kind) : null);
+        // Only /violations depends on the commit; leaving it out of the other keys lets them share cache entries
+        int commit = endpoint.equals("/violations") ? index.resolve(params.get("commit")) : -1;
+        // /trend is not paged, so neither do offset and limit split its cache entries
+        if (endpoint.equals("/trend")) return new Query(endpoint, commit, filter, 0, 0);
+        int offset = intParam(params, "offset", 0);
+        int limit = Math.min(intParam(params, "limit", DEFAULT_LIMIT), MAX_LIMIT);
+        if (offset < 0 || limit < 0) throw new IllegalArgumentException("offset and limit must not be negative");
+        return new Query(endpoint, commit, filter, offset, limit);
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " is not a number: " + value);
+        }
+    }
+
+    private JsonObject answer(Query query) {
+        return switch (query.endpoint()) {
+            case "/commits" -> commits();
+            case "/violations" -> violations(query);
+            case "/trend" -> trend(query);
+            default -> timeline(query);
+        };
+    }
+
+    private JsonObject commits() {
+        JsonArray commits = new JsonArray();
+        for (int c = 0; c < index.commitCount(); c++) {
+            JsonObject commit = new JsonObject();
+            commit.addProperty("commit", index.commits().get(c));
+            commit.addProperty("date", index.dates().get(c));
+            int total = 0, transitive = 0;
+            for (Kind kind : Kind.values()) {
+                commit.addProperty(kind.id, index.total(c, kind));
+                total += index.total(c, kind);
+                transitive += index.transitiveTotal(c, kind);
+            }
+            commit.addProperty("total", total);
+            commit.addProperty("transitive", transitive);
+            commits.add(commit);
+        }
+        JsonObject json = new JsonObject();
+        json.add("commits", commits);
+        return json;
+    }
+
+    private JsonObject violations(Query query) {
+        List<Row> rows = index.at(query.commit(), query.filter());
+        JsonObject json = page(query, rows.size());
+        json.addProperty("commit", index.commits().get(query.commit()));
+        JsonArray violations = new JsonArray();
+        for (Row row : page(rows, query)) {
+            violations.add(violation(row.kind(), row.module(), row.violation()));
+        }
+        json.add("violations", violations);
+        return json;
+    }
+
+    private JsonObject trend(Query query) {
+        int[] counts = index.trend(query.filter());
+        JsonArray trend = new JsonArray();
+        for (int c = 0; c < counts.length; c++) {
+            JsonObject point = new JsonObject();
+            point.addProperty("commit", index.commits().get(c));
+            point.addProperty("count", counts[c]);
+            trend.add(point);
+        }
+        JsonObject json = new JsonObject();
+        json.add("trend", trend);
+        return json;
+    }
+
+    private JsonObject timeline(Query query) {
+        List<Timeline> timelines = index.timelines(query.filter());
+        JsonObject json = page(query, timelines.size());
+        JsonArray violations = new JsonArray();
+        for (Timeline timeline : page(timelines, query)) {
+            JsonObject violation = violation(timeline.kind(), timeline.module(), timeline.violation());
+            JsonArray present = new JsonArray();
+            for (int s = 0; s < timeline.spans().length; s += 2) {
+                JsonObject span = new JsonObject();
+                span.addProperty("from", index.commits().get(timeline.spans()[s]));
+                // The first commit without the violation; absent while it is still present
+                int until = timeline.spans()[s + 1];
+                if (until < index.commitCount()) span.addProperty("until", index.commits().get(until));
+                present.add(span);
+            }
+            violation.add("present", present);
+            violations.add(violation);
+        }
+        json.add("violations", violations);
+        return json;
+    }
+
+    private static JsonObject page(Query query, int total) {
+        JsonObject json = new JsonObject();
+        json.addProperty("total", total);
+        json.addProperty("offset", query.offset());
+        json.addProperty("limit", query.limit());
+        return json;
+    }
+
+    private static <T> List<T> page(List<T> items, Query query) {
+        int from = Math.min(query.offset(), items.size());
+        return items.subList(from, Math.min(items.size(), from + query.limit()));
+    }
+
+    /** The violation's detail object as in the report, with its kind and module. */
+    private static JsonObject violation(Kind kind, String module, Violation violation) {
+        JsonObject json = new JsonObject();
+        json.addProperty("kind", kind.id);
+        json.addProperty("module", module);
+        for (Map.Entry<String, JsonElement> field : GSON.toJsonTree(violation).getAsJsonObject().entrySet()) {
+            json.add(field.getKey(), field.getValue());
+        }
+        // Like the report, which omits the path of directly referenced entities
+        if (violation.path().isEmpty()) json.remove("path");
+        return json;
+    }
+
+    private static byte[] error(String message) {
+        JsonObject json = new JsonObject();
+        json.addProperty("error", message);
+        return GSON.toJson(json).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body, String cacheStatus) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (cacheStatus != null) exchange.getResponseHeaders().set("X-Cache", cacheStatus);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package de.tum.cit.aet.codestats;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps package prefixes to values by whole name segments, so a lookup costs one step per segment
+ * of the package instead of one comparison per known prefix. The longest matching prefix wins:
+ * with {@code a.b -> x} and {@code a.b.c -> y}, {@code a.b.c.d} maps to {@code y}, and
+ * {@code a.bc} matches neither.
+ */
+final class PackageTrie<V> {
+
+    private final Map<String, PackageTrie<V>> children = new HashMap<>();
+    private V value;
+
+    void put(String packagePrefix, V value) {
+        PackageTrie<V> node = this;
+        for (String segment : packagePrefix.split("\\.")) {
+            node = node.children.computeIfAbsent(segment, k -> new PackageTrie<>());
+        }
+        node.value = value;
+    }
+
+    /** @return the value of the longest prefix of {@code packageName}, or {@code fallback} if none matches */
+    V longestMatch(String packageName, V fallback) {
+        V match = fallback;
+        PackageTrie<V> node = this;
+        int start = 0;
+        while (node != null && start <= packageName.length()) {
+            int end = packageName.indexOf('.', start);
+            if (end < 0) end = packageName.length();
+            node = node.children.get(packageName.substring(start, end));
+            if (node != null && node.value != null) match = node.value;
+            start = end + 1;
+        }
+        return match;
+    }
+}
@@ -0,0 +1,49 @@
+package de.tum.cit.aet.codestats;
+
+import de.tum.cit.aet.codestats.FileSummary.*;
+
+import java.util.Set;
+
+/**
+ * An architecture check evaluated over the {@link FileSummary summaries}. A rule declares the
+ * node kinds it looks at; the {@link RuleEngine} walks every summary once and hands each node to
+ * all rules interested in it, so adding a rule adds neither a parse nor a walk.
+ * <p>
+ * Rules report {@link Finding findings} through {@link RuleContext#report}, which end up in the
+ * rule's own section of the report, keyed by {@link #id}. Besides the built-in rules
+ * ({@link BuiltInRules}), implementations listed in
+ * {@code META-INF/services/de.tum.cit.aet.codestats.Rule} on the class path are loaded.
+ * Visits run concurrently on the analysis workers, one file per worker at a time, so rules must
+ * not keep mutable state.
+ */
+public interface Rule {
+
+    /** Summary nodes a rule can visit. */
+    enum NodeKind {
+        /** Every class, interface and record, nested ones included. */
+        TYPE,
+        /** Every REST endpoint method of a controller. */
+        ENDPOINT,
+        /** Every field of a DTO or controller, and every DTO record component. */
+        FIELD
+    }
+
+    /** A problem found by a rule; {@code type} and {@code member} locate it, {@code detail} describes it. */
+    record Finding(String type, String member, String detail, String file, int line) {}
+
+    /** Stable name of the rule's report section, e.g. "controller-repository-access". */
+    String id();
+
+    String description();
+
+    Set<NodeKind> nodeKinds();
+
+    default void visitType(RuleContext context, TypeSummary type) {
+    }
+
+    default void visitEndpoint(RuleContext context, TypeSummary controller, EndpointSummary endpoint) {
+    }
+
+    default void visitField(RuleContext context, TypeSummary type, FieldSummary field) {
+    }
+}
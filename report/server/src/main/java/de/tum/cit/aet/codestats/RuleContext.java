@@ -0,0 +1,113 @@
+package de.tum.cit.aet.codestats;
+
+import de.tum.cit.aet.codestats.FileSummary.*;
+import de.tum.cit.aet.codestats.Rule.Finding;
+
+import java.util.*;
+
+/**
+ * What a {@link Rule} sees of the project while visiting one file: the file, its module, name
+ * resolution in the file's scope, and the project's entities. One context per analysis worker;
+ * the {@link RuleEngine} moves it from file to file and from rule to rule.
+ */
+public final class RuleContext {
+
+    private final TypeIndex typeIndex;
+    private final TypeGraph typeGraph;
+    private final ViolationCollector violations;
+    private FileSummary file;
+    private TypeIndex.Scope scope;
+    private String module;
+    private Rule rule;
+
+    RuleContext(TypeIndex typeIndex, TypeGraph typeGraph, ViolationCollector violations) {
+        this.typeIndex = typeIndex;
+        this.typeGraph = typeGraph;
+        this.violations = violations;
+    }
+
+    void enter(FileSummary file) {
+        this.file = file;
+        this.scope = typeIndex.scope(file);
+        this.module = DtoViolationExtractor.moduleOf(file.packageName());
+    }
+
+    void enter(Rule rule) {
+        this.rule = rule;
+    }
+
+    /** Sink of the DTO checks, which keep their sections in the report's module data. */
+    ViolationCollector violations() {
+        return violations;
+    }
+
+    public FileSummary file() {
+        return file;
+    }
+
+    /** The Artemis module of the current file, "other" if its package belongs to none. */
+    public String module() {
+        return module;
+    }
+
+    /** Adds {@code finding} of the current rule, in the current file's module. */
+    public void report(Finding finding) {
+        violations.addFinding(rule.id(), module, finding);
+    }
+
+    /** @return the qualified name of {@code writtenName} as written in the current file, or null if it is no project type */
+    public String resolve(String writtenName) {
+        return scope.resolve(writtenName);
+    }
+
+    /** Whether {@code qualifiedName} is declared in the analyzed sources; imported library types are not. */
+    public boolean isProjectType(String qualifiedName) {
+        return typeIndex.contains(qualifiedName);
+    }
+
+    public boolean isEntity(String qualifiedName) {
+        return typeIndex.isEntity(qualifiedName);
+    }
+
+    /**
+     * @return every entity {@code type} references, directly or through DTO fields and
+     *         superclasses, with the shortest path to it (empty if referenced directly)
+     */
+    public Map<String, List<String>> entitiesIn(TypeRef type) {
+        Map<String, List<String>> entities = new HashMap<>();
+        for (String typeName : type.referencedNames()) {
+            String fullTypeName = scope.resolve(typeName);
+            if (fullTypeName == null) continue;
+
+            if (typeIndex.isEntity(fullTypeName)) {
+                entities.put(fullTypeName, List.of());
+            } else {
+                typeGraph.entitiesReachableFrom(fullTypeName).forEach((entity, path) ->
+                    entities.merge(entity, path, (a, b) -> a.size() <= b.size() ? a : b));
+            }
+        }
+        return entities;
+    }
+
+    /** The endpoint as shown in reports: HTTP method and the combined class and method path, e.g. "GET api/courses". */
+    public String endpoint(TypeSummary controller, EndpointSummary endpoint) {
+        return endpoint.httpMethod() + " " + combinePaths(controller.requestMappingPath(), endpoint.path());
+    }
+
+    public static String simpleName(String qualifiedName) {
+        int lastDot = qualifiedName.lastIndexOf('.');
+        return lastDot >= 0 ? qualifiedName.substring(lastDot + 1) : qualifiedName;
+    }
+
+    private static String combinePaths(String base, String path) {
+        if (base.isEmpty()) return path.isEmpty() ? "/" : path;
+        if (path.isEmpty()) return base;
+        if (base.endsWith("/") && path.startsWith("/")) {
+            return base + path.substring(1);
+        }
+        if (!base.endsWith("/") && !path.startsWith("/")) {
+            return base + "/" + path;
+        }
+        return base + path;
+    }
+}
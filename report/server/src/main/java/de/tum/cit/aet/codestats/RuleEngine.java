@@ -0,0 +1,109 @@
+package de.tum.cit.aet.codestats;
+
+import de.tum.cit.aet.codestats.FileSummary.*;
+import de.tum.cit.aet.codestats.Rule.NodeKind;
+
+import java.util.*;
+
+/**
+ * Evaluates all rules in one walk per file: every type, endpoint and field node is handed to
+ * the rules registered for its kind, in rule order. The time spent in each rule is measured per
+ * worker, so rules can be compared without profiling.
+ */
+final class RuleEngine {
+
+    private final List<Rule> rules;
+    private final int[] typeRules;
+    private final int[] endpointRules;
+    private final int[] fieldRules;
+
+    RuleEngine(List<Rule> rules) {
+        this.rules = List.copyOf(rules);
+        this.typeRules = interested(NodeKind.TYPE);
+        this.endpointRules = interested(NodeKind.ENDPOINT);
+        this.fieldRules = interested(NodeKind.FIELD);
+    }
+
+    /** The {@link BuiltInRules built-in rules} followed by those registered as services on the class path. */
+    static RuleEngine load() {
+        List<Rule> rules = new ArrayList<>(BuiltInRules.all());
+        ServiceLoader.load(Rule.class).forEach(rules::add);
+        return new RuleEngine(rules);
+    }
+
+    List<Rule> rules() {
+        return rules;
+    }
+
+    private int[] interested(NodeKind kind) {
+        List<Integer> indexes = new ArrayList<>();
+        for (int r = 0; r < rules.size(); r++) {
+            if (rules.get(r).nodeKinds().contains(kind)) indexes.add(r);
+        }
+        return indexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /** Per-worker state: the rule context and the time spent in each rule. */
+    final class Worker {
+        final RuleContext context;
+        final long[] nanos = new long[rules.size()];
+        final long[] visits = new long[rules.size()];
+
+        private Worker(RuleContext context) {
+            this.context = context;
+        }
+
+        ViolationCollector violations() {
+            return context.violations();
+        }
+    }
+
+    /** A worker resolving against {@code typeIndex} and {@code typeGraph} and collecting into {@code violations}. */
+    Worker newWorker(TypeIndex typeIndex, TypeGraph typeGraph, ViolationCollector violations) {
+        return new Worker(new RuleContext(typeIndex, typeGraph, violations));
+    }
+
+    void visit(FileSummary summary, Worker worker) {
+        RuleContext context = worker.context;
+        context.enter(summary);
+        for (TypeSummary type : summary.types()) {
+            for (int r : typeRules) {
+                long start = System.nanoTime();
+                context.enter(rules.get(r));
+                rules.get(r).visitType(context, type);
+                worker.nanos[r] += System.nanoTime() - start;
+                worker.visits[r]++;
+            }
+            for (EndpointSummary endpoint : type.endpoints()) {
+                for (int r : endpointRules) {
+                    long start = System.nanoTime();
+                    context.enter(rules.get(r));
+                    rules.get(r).visitEndpoint(context, type, endpoint);
+                    worker.nanos[r] += System.nanoTime() - start;
+                    worker.visits[r]++;
+                }
+            }
+            for (FieldSummary field : type.fields()) {
+                for (int r : fieldRules) {
+                    long start = System.nanoTime();
+                    context.enter(rules.get(r));
+                    rules.get(r).visitField(context, type, field);
+                    worker.nanos[r] += System.nanoTime() - start;
+                    worker.visits[r]++;
+                }
+            }
+        }
+    }
+
+    /** Adds the time every rule took on {@code workers} to {@code metrics}. */
+    void recordTimings(List<Worker> workers, ExtractorMetrics metrics) {
+        for (int r = 0; r < rules.size(); r++) {
+            long nanos = 0, visits = 0;
+            for (Worker worker : workers) {
+                nanos += worker.nanos[r];
+                visits += worker.visits[r];
+            }
+            metrics.recordRule(rules.get(r).id(), nanos, visits);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package de.tum.cit.aet.codestats;
+
+import com.google.gson.Gson;
+
+import de.tum.cit.aet.codestats.SourceTree.SourceFile;
+import de.tum.cit.aet.codestats.ViolationReportWriter.Totals;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Spreads the analysis phase of one tree over worker processes, each analyzing the files of
+ * some modules.
+ * <p>
+ * The coordinator, an extractor with {@link DtoViolationExtractor#setShards shards}, parses the
+ * tree once to build the type index and type graph and writes them to {@code index.json.gz}.
+ * Modules go to shards by the number of files to analyze, largest first onto the least loaded
+ * shard; {@code shard-<n>.json} tells a worker where the sources are, how to parse them and which
+ * files are its own. Each worker writes a regular report of its files, and merging the reports
+ * yields the report of an unsharded run byte for byte, whatever the number of shards. Workers
+ * need nothing but these two files and read access to the sources, so they can run elsewhere:
+ * <pre>
+ *   java -cp ... de.tum.cit.aet.codestats.ShardedAnalysis worker index.json.gz shard-0.json shard-0.report.json
+ *   java -cp ... de.tum.cit.aet.codestats.ShardedAnalysis merge violations.json shard-*.report.json
+ * </pre>
+ */
+public final class ShardedAnalysis {
+
+    private static final Gson GSON = new Gson();
+
+    private final int shards;
+    private final int threads;
+    private final boolean prefilter;
+    private final boolean skeleton;
+
+    /** @param threads analysis threads of the whole machine, divided among the workers */
+    ShardedAnalysis(int shards, int threads, boolean prefilter, boolean skeleton) {
+        this.shards = shards;
+        this.threads = threads;
+        this.prefilter = prefilter;
+        this.skeleton = skeleton;
+    }
+
+    /** Where a worker reads the sources: a directory, or a commit of the repository containing {@code repository}. */
+    private static class SourceJson {
+        String directory;
+        String repository;
+        String commit;
+    }
+
+    /** A shard: the sources, the parser settings and the files to analyze. */
+    private static class ShardJson {
+        SourceJson source;
+        boolean prefilter;
+        boolean skeleton;
+        int threads;
+        List<String> modules;
+        List<SourceFile> files;
+    }
+
+    /** The type index and graph, as built by the coordinator. */
+    private static class IndexJson {
+        List<String> types;
+        List<String> entities;
+        Map<String, Map<String, List<String>>> reachable;
+    }
+
+    /** What a worker found besides its report. */
+    private static class ResultJson {
+        int controllersFound;
+        int dtosFound;
+    }
+
+    /**
+     * Analyzes {@code files}, the files of {@code sourceTree} declaring classes or records, in
+     * worker processes; {@code modules} holds the module of each file.
+     *
+     * @return the merged violations, sorted
+     */
+    ViolationCollector run(SourceTree sourceTree, TypeIndex typeIndex, TypeGraph typeGraph,
+                           List<SourceFile> files, List<String> modules) throws IOException, InterruptedException {
+        List<List<String>> assignment = assign(modules);
+        if (assignment.isEmpty()) return new ViolationCollector();
+
+        Path dir = Files.createTempDirectory("codestats-shards");
+        Path index = dir.resolve("index.json.gz");
+        writeJson(index, indexJson(typeIndex, typeGraph));
+
+        List<Process> workers = new ArrayList<>();
+        List<Path> reports = new ArrayList<>();
+        for (int n = 0; n < assignment.size(); n++) {
+            Set<String> shardModules = new HashSet<>(assignment.get(n));
+            ShardJson shard = new ShardJson();
+            shard.source = sourceJson(sourceTree);
+            shard.prefilter = prefilter;
+            shard.skeleton = skeleton;
+            shard.threads = Math.max(1, threads / assignment.size());
+            shard.modules = assignment.get(n);
+            shard.files = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                if (shardModules.contains(modules.get(i))) shard.files.add(files.get(i));
+            }
+            System.out.println("Shard " + n + ": " + shard.files.size() + " files in " + String.join(", ", shard.modules));
+
+            Path spec = dir.resolve("shard-" + n + ".json");
+            Path report = dir.resolve("shard-" + n + ".report.json");
+            writeJson(spec, shard);
+            reports.add(report);
+            workers.add(new ProcessBuilder(javaCommand("worker", index.toString(), spec.toString(), report.toString()))
+                .redirectErrorStream(true)
+                .redirectOutput(dir.resolve("shard-" + n + ".log").toFile())
+                .start());
+        }
+
+        int failed = 0;
+        for (int n = 0; n < workers.size(); n++) {
+            int exitCode = workers.get(n).waitFor();
+            if (exitCode != 0) {
+                System.err.println("ERROR: Shard " + n + " failed with exit code " + exitCode + ", see " + dir.resolve("shard-" + n + ".log"));
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            throw new IOException(failed + " of " + workers.size() + " shards failed, shard files kept in " + dir);
+        }
+
+        ViolationCollector merged = merge(reports).violations();
+        for (Path report : reports) {
+            ResultJson result = readJson(resultOf(report), ResultJson.class);
+            merged.controllersFound += result.controllersFound;
+            merged.dtosFound += result.dtosFound;
+        }
+        deleteRecursively(dir);
+        return merged;
+    }
+
+    /**
+     * Distributes the modules over at most {@link #shards} shards, balancing the number of files:
+     * modules in descending file count (ties by name) each go to the shard with the fewest files.
+     */
+    private List<List<String>> assign(List<String> modules) {
+        Map<String, Integer> fileCounts = new TreeMap<>();
+        modules.forEach(module -> fileCounts.merge(module, 1, Integer::sum));
+        // The sort is stable, so modules of equal size stay in name order
+        List<String> bySize = new ArrayList<>(fileCounts.keySet());
+        bySize.sort(Comparator.comparing(fileCounts::get, Comparator.reverseOrder()));
+
+        int shardCount = Math.min(shards, bySize.size());
+        List<List<String>> assignment = new ArrayList<>();
+        int[] load = new int[shardCount];
+        for (int n = 0; n < shardCount; n++) assignment.add(new ArrayList<>());
+        for (String module : bySize) {
+            int lightest = 0;
+            for (int n = 1; n < shardCount; n++) {
+                if (load[n] < load[lightest]) lightest = n;
+            }
+            assignment.get(lightest).add(module);
+            load[lightest] += fileCounts.get(module);
+        }
+        assignment.forEach(Collections::sort);
+        return assignment;
+    }
+
+    private static IndexJson indexJson(TypeIndex typeIndex, TypeGraph typeGraph) {
+        IndexJson json = new IndexJson();
+        json.types = new ArrayList<>(new TreeSet<>(typeIndex.types()));
+        json.entities = new ArrayList<>(new TreeSet<>(typeIndex.entities()));
+        json.reachable = new TreeMap<>(typeGraph.reachability());
+        return json;
+    }
+
+    private static SourceJson sourceJson(SourceTree sourceTree) {
+        SourceJson json = new SourceJson();
+        json.commit = sourceTree.commit();
+        if (sourceTree instanceof GitSourceTree gitTree) {
+            json.repository = gitTree.repository().sourceDir().toAbsolutePath().toString();
+        } else if (sourceTree instanceof DirectorySourceTree directoryTree) {
+            json.directory = directoryTree.sourceRoot().toAbsolutePath().toString();
+        } else {
+            throw new IllegalArgumentException("Cannot shard " + sourceTree.getClass().getSimpleName());
+        }
+        return json;
+    }
+
+    /** Runs this class in a JVM like the current one. */
+    private static List<String> javaCommand(String... args) {
+        List<String> command = new ArrayList<>(List.of(
+            Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+            "-cp", System.getProperty("java.class.path"),
+            ShardedAnalysis.class.getName()));
+        command.addAll(List.of(args));
+        return command;
+    }
+
+    /**
+     * Combines shard reports into one report: the union of their modules in name order and all
+     * their violations in canonical order, so the result does not depend on how the modules were
+     * sharded or in which order the reports are given.
+     */
+    static ViolationReport merge(List<Path> reports) throws IOException {
+        Set<String> modules = new TreeSet<>();
+        ViolationCollector merged = new ViolationCollector();
+        for (Path report : reports) {
+            ViolationReport shard = ViolationReport.read(report);
+            modules.addAll(shard.modules());
+            merged.merge(shard.violations());
+        }
+        merged.sort();
+        return new ViolationReport(List.copyOf(modules), merged);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: ShardedAnalysis worker <indexFile> <shardFile> <reportFile>");
+            System.err.println("       ShardedAnalysis merge <outputFile> <shardReport>...");
+            System.exit(1);
+        }
+
+        switch (args[0]) {
+            case "worker" -> {
+                if (args.length < 4) {
+                    System.err.println("ERROR: worker needs <indexFile> <shardFile> <reportFile>");
+                    System.exit(1);
+                }
+                work(Path.of(args[1]), Path.of(args[2]), Path.of(args[3]));
+            }
+            case "merge" -> {
+                List<Path> reports = Arrays.stream(args).skip(2).map(Path::of).toList();
+                ViolationReportWriter writer = new ViolationReportWriter(!Boolean.getBoolean("output.compact"), args[1].endsWith(".gz"));
+                Totals totals = merge(reports).write(Path.of(args[1]), writer);
+                System.out.println("Merged " + reports.size() + " shard reports into " + args[1] + ": " + totals.total() + " violations");
+            }
+            default -> {
+                System.err.println("ERROR: Unknown command: " + args[0]);
+                System.exit(1);
+            }
+        }
+    }
+
+    private static void work(Path indexFile, Path shardFile, Path reportFile) throws Exception {
+        IndexJson index = readJson(indexFile, IndexJson.class);
+        ShardJson shard = readJson(shardFile, ShardJson.class);
+        System.out.println("=== Shard " + shardFile.getFileName() + ": " + shard.files.size() + " files in "
+            + String.join(", ", shard.modules) + " ===");
+
+        TypeIndex typeIndex = new TypeIndex();
+        Set<String> entities = new HashSet<>(index.entities);
+        index.types.forEach(type -> typeIndex.add(type, entities.contains(type)));
+        TypeGraph typeGraph = TypeGraph.of(typeIndex.entities(), index.reachable);
+
+        DtoViolationExtractor extractor = new DtoViolationExtractor(shard.threads);
+        extractor.setPrefilter(shard.prefilter);
+        extractor.setSkeleton(shard.skeleton);
+        extractor.setReportWriter(new ViolationReportWriter(false, false));
+
+        ViolationCollector collected;
+        if (shard.source.repository != null) {
+            try (GitRepository repository = new GitRepository(Path.of(shard.source.repository))) {
+                collected = extractor.analyzeShard(repository.tree(shard.source.commit), shard.files, typeIndex, typeGraph, reportFile);
+            }
+        } else {
+            SourceTree sourceTree = new DirectorySourceTree(Path.of(shard.source.directory), shard.source.commit);
+            collected = extractor.analyzeShard(sourceTree, shard.files, typeIndex, typeGraph, reportFile);
+        }
+
+        ResultJson result = new ResultJson();
+        result.controllersFound = collected.controllersFound;
+        result.dtosFound = collected.dtosFound;
+        writeJson(resultOf(reportFile), result);
+    }
+
+    private static Path resultOf(Path report) {
+        return report.resolveSibling(report.getFileName().toString().replace(".report.json", ".result.json"));
+    }
+
+    private static void writeJson(Path file, Object value) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+        if (file.toString().endsWith(".gz")) out = new GZIPOutputStream(out, 1 << 16);
+        try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            GSON.toJson(value, writer);
+        }
+    }
+
+    private static <T> T readJson(Path file, Class<T> type) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+        if (file.toString().endsWith(".gz")) in = new GZIPInputStream(in, 1 << 16);
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return GSON.fromJson(reader, type);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
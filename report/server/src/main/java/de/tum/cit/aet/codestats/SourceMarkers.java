@@ -0,0 +1,141 @@
+package de.tum.cit.aet.codestats;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Byte-level scan that tells whether a source file can contribute to any check, so files that
+ * cannot are never handed to JavaParser.
+ * <p>
+ * The scan is conservative: it may report markers a full parse would not find (annotations in
+ * comments or strings, {@code Foo.class} followed by a DTO-like name), but never misses one.
+ * Constructs it cannot see through, such as unicode escapes or a comment between {@code @} and
+ * the annotation name, report every marker.
+ */
+final class SourceMarkers {
+
+    static final int NONE = 0;
+    /** {@code @Entity} or {@code @MappedSuperclass}: the file may declare entities. */
+    static final int ENTITY = 1;
+    /** {@code @RestController} or {@code @Controller}: the file may declare endpoints. */
+    static final int CONTROLLER = 2;
+    /** A class, interface or record whose name passes {@link SourceSummarizer#isDtoName}. */
+    static final int DTO = 4;
+    /** A class with an {@code extends} clause: it may inherit from an entity. */
+    static final int SUBCLASS = 8;
+    static final int ALL = ENTITY | CONTROLLER | DTO | SUBCLASS;
+
+    private static final byte[] ENTITY_ANNOTATION = ascii("Entity");
+    private static final byte[] MAPPED_SUPERCLASS_ANNOTATION = ascii("MappedSuperclass");
+    private static final byte[] REST_CONTROLLER_ANNOTATION = ascii("RestController");
+    private static final byte[] CONTROLLER_ANNOTATION = ascii("Controller");
+    private static final byte[] CLASS_KEYWORD = ascii("class");
+    private static final byte[] INTERFACE_KEYWORD = ascii("interface");
+    private static final byte[] RECORD_KEYWORD = ascii("record");
+    private static final byte[] EXTENDS_KEYWORD = ascii("extends");
+
+    private SourceMarkers() {
+    }
+
+    /** @return the markers found in UTF-8 source {@code content}, a combination of the flags above */
+    static int scan(byte[] content) {
+        int markers = NONE;
+        int n = content.length;
+        int i = 0;
+        while (i < n && markers != ALL) {
+            byte b = content[i];
+            if (b == '\\' && i + 1 < n && content[i + 1] == 'u') {
+                // Unicode escapes can spell anything; leave those files to the parser
+                return ALL;
+            }
+            if (b == '@') {
+                int start = skipWhitespace(content, i + 1);
+                if (start < n && content[start] == '/') return ALL;
+                int end = identifierEnd(content, start);
+                if (matches(content, start, end, ENTITY_ANNOTATION)
+                        || matches(content, start, end, MAPPED_SUPERCLASS_ANNOTATION)) {
+                    markers |= ENTITY;
+                } else if (matches(content, start, end, REST_CONTROLLER_ANNOTATION)
+                        || matches(content, start, end, CONTROLLER_ANNOTATION)) {
+                    markers |= CONTROLLER;
+                }
+                i = Math.max(end, i + 1);
+            } else if (isIdentifierPart(b)) {
+                int end = identifierEnd(content, i);
+                boolean isClass = matches(content, i, end, CLASS_KEYWORD);
+                if (isClass || matches(content, i, end, INTERFACE_KEYWORD) || matches(content, i, end, RECORD_KEYWORD)) {
+                    int nameStart = skipWhitespace(content, end);
+                    if (nameStart < n && content[nameStart] == '/') {
+                        markers |= DTO;
+                    } else {
+                        int nameEnd = identifierEnd(content, nameStart);
+                        if (nameEnd > nameStart && SourceSummarizer.isDtoName(
+                                new String(content, nameStart, nameEnd - nameStart, StandardCharsets.UTF_8))) {
+                            markers |= DTO;
+                        }
+                        end = Math.max(end, nameEnd);
+                    }
+                    if (isClass && hasExtendsClause(content, end)) {
+                        markers |= SUBCLASS;
+                    }
+                }
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        return markers;
+    }
+
+    /**
+     * Whether the class header starting at {@code i} has an {@code extends} before its body. Type
+     * parameter bounds count as well; comments and literals in the header count as a match.
+     */
+    private static boolean hasExtendsClause(byte[] content, int i) {
+        while (i < content.length) {
+            byte b = content[i];
+            if (b == '{' || b == ';') return false;
+            if (b == '/' || b == '"' || b == '\'') return true;
+            if (isIdentifierPart(b)) {
+                int end = identifierEnd(content, i);
+                if (matches(content, i, end, EXTENDS_KEYWORD)) return true;
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        return false;
+    }
+
+    private static int skipWhitespace(byte[] content, int i) {
+        while (i < content.length && (content[i] == ' ' || content[i] == '\t' || content[i] == '\n'
+                || content[i] == '\r' || content[i] == '\f')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int identifierEnd(byte[] content, int i) {
+        while (i < content.length && isIdentifierPart(content[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    /** ASCII letters, digits, {@code _}, {@code $}, and any byte of a multi-byte UTF-8 character. */
+    private static boolean isIdentifierPart(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+            || b == '_' || b == '$' || b < 0;
+    }
+
+    private static boolean matches(byte[] content, int start, int end, byte[] word) {
+        if (end - start != word.length) return false;
+        for (int k = 0; k < word.length; k++) {
+            if (content[start + k] != word[k]) return false;
+        }
+        return true;
+    }
+
+    private static byte[] ascii(String word) {
+        return word.getBytes(StandardCharsets.US_ASCII);
+    }
+}
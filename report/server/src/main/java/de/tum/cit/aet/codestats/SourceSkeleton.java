@@ -0,0 +1,253 @@
+package de.tum.cit.aet.codestats;
+
+import java.util.Arrays;
+
+/**
+ * Blanks method, constructor and initializer bodies out of Java source before it is parsed.
+ * <p>
+ * None of the checks look inside bodies, yet in controllers and services the statement and
+ * expression trees are most of the AST. Body contents are overwritten with spaces, keeping line
+ * breaks, so every declaration keeps its line and column, and the braces stay so the result is
+ * still valid Java: {@code void f() { ... }} becomes {@code void f() {   }}. Java 21 constructs
+ * inside bodies (switch patterns, local records, lambdas) therefore never reach the parser.
+ * <p>
+ * Only unambiguous member bodies are blanked: a brace directly inside a type body that follows a
+ * parameter list or {@code throws} clause, or starts an initializer. Bodies that declare local
+ * types are kept, since those types are visible to the checks. Anything the lexer cannot follow
+ * (unicode escapes, unbalanced braces) leaves the content untouched.
+ */
+final class SourceSkeleton {
+
+    private static final int IDENTIFIER = 0;
+    private static final int LITERAL = 1;
+    private static final int PUNCTUATION = 2;
+    private static final int END = 3;
+
+    private static final int TYPE_BODY = 0;
+    private static final int BLOCK = 1;
+
+    private final byte[] content;
+    private int pos;
+    private int tokenStart;
+    private int tokenEnd;
+
+    private SourceSkeleton(byte[] content) {
+        this.content = content;
+    }
+
+    /**
+     * @return a copy of UTF-8 source {@code content} with member bodies blanked, or {@code content}
+     *         itself if there is nothing to blank or the source cannot be followed
+     */
+    static byte[] strip(byte[] content) {
+        try {
+            byte[] stripped = new SourceSkeleton(content.clone()).strip();
+            return stripped != null ? stripped : content;
+        } catch (IllegalStateException e) {
+            return content;
+        }
+    }
+
+    private byte[] strip() {
+        boolean blanked = false;
+        int[] stack = new int[16];
+        int depth = 0;
+
+        // Member header since the last ';', '{' or '}' at member level
+        int parenDepth = 0;
+        int headerTokens = 0;
+        boolean headerIsStatic = false;
+        boolean sawTypeKeyword = false;
+        boolean sawAssign = false;
+        boolean sawThrows = false;
+        int previous = END;
+        byte previousChar = 0;
+
+        for (int type = next(); type != END; type = next()) {
+            boolean memberLevel = depth == 0 || stack[depth - 1] == TYPE_BODY;
+            byte c = content[tokenStart];
+
+            if (type == PUNCTUATION && c == '{') {
+                int kind = BLOCK;
+                if (memberLevel && parenDepth == 0) {
+                    if (sawTypeKeyword) {
+                        kind = TYPE_BODY;
+                    } else if (depth > 0 && !sawAssign && ((previous == PUNCTUATION && previousChar == ')')
+                            || sawThrows || headerTokens == 0 || (headerTokens == 1 && headerIsStatic))) {
+                        int open = tokenStart;
+                        int close = findBodyEnd(open);
+                        if (close >= 0) {
+                            for (int k = open + 1; k < close; k++) {
+                                if (content[k] != '\n' && content[k] != '\r') content[k] = ' ';
+                            }
+                            blanked = true;
+                            pos = close + 1;
+                            headerTokens = 0;
+                            headerIsStatic = sawTypeKeyword = sawAssign = sawThrows = false;
+                            previous = PUNCTUATION;
+                            previousChar = '}';
+                            continue;
+                        }
+                    }
+                }
+                if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+                stack[depth++] = kind;
+                headerTokens = 0;
+                headerIsStatic = sawTypeKeyword = sawAssign = sawThrows = false;
+            } else if (type == PUNCTUATION && c == '}') {
+                if (depth == 0) throw new IllegalStateException("Unbalanced braces");
+                depth--;
+                headerTokens = 0;
+                headerIsStatic = sawTypeKeyword = sawAssign = sawThrows = false;
+            } else if (memberLevel) {
+                if (type == PUNCTUATION && c == ';' && parenDepth == 0) {
+                    headerTokens = 0;
+                    headerIsStatic = sawTypeKeyword = sawAssign = sawThrows = false;
+                } else {
+                    if (type == PUNCTUATION && c == '(') parenDepth++;
+                    else if (type == PUNCTUATION && c == ')') parenDepth = Math.max(0, parenDepth - 1);
+                    else if (type == PUNCTUATION && c == '=' && parenDepth == 0) sawAssign = true;
+                    else if (type == IDENTIFIER && parenDepth == 0) {
+                        if (is("throws")) sawThrows = true;
+                        else if (isTypeDeclaration(previous == PUNCTUATION && previousChar == '.')) sawTypeKeyword = true;
+                        if (headerTokens == 0) headerIsStatic = is("static");
+                    }
+                    headerTokens++;
+                }
+            }
+            previous = type;
+            previousChar = c;
+        }
+
+        if (depth != 0) throw new IllegalStateException("Unbalanced braces");
+        return blanked ? content : null;
+    }
+
+    /**
+     * Finds the brace closing the body opened at {@code open}.
+     *
+     * @return its index, or -1 if the body declares a local type and must be kept
+     */
+    private int findBodyEnd(int open) {
+        int saved = pos;
+        pos = open + 1;
+        int depth = 1;
+        boolean afterDot = false;
+        for (int type = next(); type != END; type = next()) {
+            byte c = content[tokenStart];
+            if (type == PUNCTUATION && c == '{') {
+                depth++;
+            } else if (type == PUNCTUATION && c == '}' && --depth == 0) {
+                int close = tokenStart;
+                pos = saved;
+                return close;
+            } else if (type == IDENTIFIER && isTypeDeclaration(afterDot)) {
+                pos = saved;
+                return -1;
+            }
+            afterDot = type == PUNCTUATION && c == '.';
+        }
+        throw new IllegalStateException("Unbalanced braces");
+    }
+
+    /** Whether the current identifier is {@code class}, {@code interface}, {@code enum} or {@code record} followed by a name. */
+    private boolean isTypeDeclaration(boolean afterDot) {
+        if (afterDot || !(is("class") || is("interface") || is("enum") || is("record"))) return false;
+        int savedPos = pos;
+        int savedStart = tokenStart;
+        int savedEnd = tokenEnd;
+        boolean named = next() == IDENTIFIER;
+        pos = savedPos;
+        tokenStart = savedStart;
+        tokenEnd = savedEnd;
+        return named;
+    }
+
+    private boolean is(String word) {
+        if (tokenEnd - tokenStart != word.length()) return false;
+        for (int k = 0; k < word.length(); k++) {
+            if (content[tokenStart + k] != word.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    /** Advances to the next token, skipping whitespace and comments. */
+    private int next() {
+        int n = content.length;
+        while (pos < n) {
+            byte b = content[pos];
+            if (b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f') {
+                pos++;
+            } else if (b == '/' && pos + 1 < n && content[pos + 1] == '/') {
+                while (pos < n && content[pos] != '\n' && content[pos] != '\r') pos++;
+            } else if (b == '/' && pos + 1 < n && content[pos + 1] == '*') {
+                int end = indexOf("*/", pos + 2);
+                pos = end + 2;
+            } else {
+                break;
+            }
+        }
+        if (pos >= n) return END;
+
+        tokenStart = pos;
+        byte b = content[pos];
+        if (b == '\\' && pos + 1 < n && content[pos + 1] == 'u') {
+            throw new IllegalStateException("Unicode escape");
+        }
+        if (isIdentifierPart(b)) {
+            while (pos < n && isIdentifierPart(content[pos])) pos++;
+            tokenEnd = pos;
+            return IDENTIFIER;
+        }
+        if (b == '"' && pos + 2 < n && content[pos + 1] == '"' && content[pos + 2] == '"') {
+            pos = skipTextBlock(pos + 3);
+            tokenEnd = pos;
+            return LITERAL;
+        }
+        if (b == '"' || b == '\'') {
+            pos = skipQuoted(pos + 1, b);
+            tokenEnd = pos;
+            return LITERAL;
+        }
+        tokenEnd = ++pos;
+        return PUNCTUATION;
+    }
+
+    private int skipQuoted(int i, byte quote) {
+        while (i < content.length) {
+            byte b = content[i];
+            if (b == '\\') i += 2;
+            else if (b == quote) return i + 1;
+            else if (b == '\n') throw new IllegalStateException("Unterminated literal");
+            else i++;
+        }
+        throw new IllegalStateException("Unterminated literal");
+    }
+
+    private int skipTextBlock(int i) {
+        while (i < content.length) {
+            byte b = content[i];
+            if (b == '\\') i += 2;
+            else if (b == '"' && i + 2 < content.length && content[i + 1] == '"' && content[i + 2] == '"') return i + 3;
+            else i++;
+        }
+        throw new IllegalStateException("Unterminated text block");
+    }
+
+    private int indexOf(String marker, int from) {
+        outer:
+        for (int i = from; i + marker.length() <= content.length; i++) {
+            for (int k = 0; k < marker.length(); k++) {
+                if (content[i + k] != marker.charAt(k)) continue outer;
+            }
+            return i;
+        }
+        throw new IllegalStateException("Unterminated comment");
+    }
+
+    /** ASCII letters, digits, {@code _}, {@code $}, and any byte of a multi-byte UTF-8 character. */
+    private static boolean isIdentifierPart(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+            || b == '_' || b == '$' || b < 0;
+    }
+}
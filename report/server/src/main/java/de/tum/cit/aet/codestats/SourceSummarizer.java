@@ -0,0 +1,275 @@
+package de.tum.cit.aet.codestats;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.*;
+import com.github.javaparser.ast.expr.*;
+import com.github.javaparser.ast.nodeTypes.NodeWithAnnotations;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
+
+import de.tum.cit.aet.codestats.FileSummary.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Parses the content of a Java source file once and reduces it to a {@link FileSummary}.
+ * The AST is dropped as soon as the summary is built.
+ */
+public class SourceSummarizer {
+
+    // REST mapping annotations
+    static final Set<String> REST_MAPPING_ANNOTATIONS = Set.of(
+        "GetMapping", "PostMapping", "PutMapping", "DeleteMapping", "PatchMapping", "RequestMapping"
+    );
+
+    private final JavaParser parser;
+    private final boolean skeleton;
+    {
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21);
+        parser = new JavaParser(config);
+    }
+
+    /** A summarizer that parses declaration skeletons, see {@link SourceSkeleton}. */
+    public SourceSummarizer() {
+        this(true);
+    }
+
+    /** @param skeleton whether member bodies are blanked before parsing; the summary is the same either way */
+    public SourceSummarizer(boolean skeleton) {
+        this.skeleton = skeleton;
+    }
+
+    /**
+     * Parses already loaded UTF-8 source content and summarizes it.
+     *
+     * @return the summary, or empty if the content could not be parsed
+     */
+    public Optional<FileSummary> summarize(byte[] content, String relativePath) {
+        try {
+            return Optional.of(summarizeOrThrow(content, relativePath));
+        } catch (UnparseableSourceException e) {
+            // Skip unparseable files
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Like {@link #summarize(byte[], String)}, but reports why the content could not be summarized.
+     *
+     * @throws UnparseableSourceException whose message is the failure cause, coarse enough to group by
+     */
+    public FileSummary summarizeOrThrow(byte[] content, String relativePath) throws UnparseableSourceException {
+        ParseResult<CompilationUnit> result;
+        try {
+            byte[] source = skeleton ? SourceSkeleton.strip(content) : content;
+            result = parser.parse(new String(source, StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new UnparseableSourceException("parser error: " + e.getClass().getSimpleName(), e);
+        }
+        if (!result.isSuccessful() || result.getResult().isEmpty()) {
+            throw new UnparseableSourceException("syntax error", null);
+        }
+
+        try {
+            return summarize(result.getResult().get(), relativePath);
+        } catch (Exception e) {
+            throw new UnparseableSourceException("summary error: " + e.getClass().getSimpleName(), e);
+        }
+    }
+
+    private FileSummary summarize(CompilationUnit cu, String relativePath) {
+        String packageName = cu.getPackageDeclaration()
+            .map(pd -> pd.getNameAsString())
+            .orElse("");
+
+        List<String> imports = cu.getImports().stream()
+            .map(imp -> imp.isAsterisk() ? imp.getNameAsString() + ".*" : imp.getNameAsString())
+            .toList();
+
+        List<String> declaredTypes = new ArrayList<>();
+        cu.findAll(TypeDeclaration.class).forEach(type -> {
+            // Local types cannot be referenced from other files
+            if (type.isTopLevelType() || type.getParentNode().filter(TypeDeclaration.class::isInstance).isPresent()) {
+                declaredTypes.add(nestedName(type));
+            }
+        });
+
+        List<TypeSummary> types = new ArrayList<>();
+        cu.findAll(ClassOrInterfaceDeclaration.class).forEach(cls -> {
+            Set<String> annotations = annotationNames(cls);
+            boolean isController = annotations.contains("RestController") || annotations.contains("Controller");
+
+            List<EndpointSummary> endpoints = isController ? summarizeEndpoints(cls) : List.of();
+            List<FieldSummary> fields = new ArrayList<>();
+            if (isController || isDtoName(cls.getNameAsString())) {
+                cls.getFields().forEach(field -> {
+                    int lineNumber = field.getBegin().map(p -> p.line).orElse(0);
+                    field.getVariables().forEach(var ->
+                        fields.add(new FieldSummary(var.getNameAsString(), typeRef(var.getType()), lineNumber)));
+                });
+            }
+
+            String superclass = cls.isInterface() || cls.getExtendedTypes().isEmpty()
+                ? null : cls.getExtendedTypes(0).getNameWithScope();
+
+            types.add(new TypeSummary(cls.getNameAsString(), nestedName(cls), TypeKind.CLASS, superclass, annotations,
+                isController ? getRequestMappingPath(cls) : "", endpoints, fields));
+        });
+
+        cu.findAll(RecordDeclaration.class).forEach(rec -> {
+            List<FieldSummary> fields = new ArrayList<>();
+            if (isDtoName(rec.getNameAsString())) {
+                rec.getParameters().forEach(param -> {
+                    int lineNumber = param.getBegin().map(p -> p.line).orElse(0);
+                    fields.add(new FieldSummary(param.getNameAsString(), typeRef(param.getType()), lineNumber));
+                });
+            }
+
+            types.add(new TypeSummary(rec.getNameAsString(), nestedName(rec), TypeKind.RECORD, null,
+                annotationNames(rec), "", List.of(), fields));
+        });
+
+        return new FileSummary(relativePath, packageName, imports, declaredTypes, types);
+    }
+
+    private List<EndpointSummary> summarizeEndpoints(ClassOrInterfaceDeclaration cls) {
+        List<EndpointSummary> endpoints = new ArrayList<>();
+        cls.getMethods().forEach(method -> {
+            // Check if it's a REST endpoint
+            String httpMethod = null;
+            String methodPath = "";
+
+            for (String annotation : REST_MAPPING_ANNOTATIONS) {
+                if (hasAnnotation(method, annotation)) {
+                    httpMethod = annotation.replace("Mapping", "").toUpperCase();
+                    methodPath = getMappingPath(method, annotation);
+                    break;
+                }
+            }
+
+            if (httpMethod == null) return;
+
+            List<ParameterSummary> parameters = new ArrayList<>();
+            method.getParameters().forEach(param -> {
+                String bodyAnnotation = null;
+                if (hasAnnotation(param, "RequestBody")) {
+                    bodyAnnotation = "@RequestBody";
+                } else if (hasAnnotation(param, "RequestPart")) {
+                    bodyAnnotation = "@RequestPart";
+                }
+                parameters.add(new ParameterSummary(param.getNameAsString(), typeRef(param.getType()), bodyAnnotation));
+            });
+
+            int lineNumber = method.getBegin().map(p -> p.line).orElse(0);
+            endpoints.add(new EndpointSummary(method.getNameAsString(), httpMethod, methodPath, lineNumber,
+                annotationNames(method), typeRef(method.getType()), parameters));
+        });
+        return endpoints;
+    }
+
+    /** Name of {@code type} within its package, prefixed by all enclosing types: "Outer.Inner". */
+    private static String nestedName(TypeDeclaration<?> type) {
+        StringBuilder name = new StringBuilder(type.getNameAsString());
+        for (Node parent = type.getParentNode().orElse(null); parent != null; parent = parent.getParentNode().orElse(null)) {
+            if (parent instanceof TypeDeclaration<?> enclosing) {
+                name.insert(0, enclosing.getNameAsString() + ".");
+            }
+        }
+        return name.toString();
+    }
+
+    static boolean isDtoName(String typeName) {
+        return typeName.contains("DTO") || typeName.endsWith("Dto");
+    }
+
+    private TypeRef typeRef(Type type) {
+        List<String> names = new ArrayList<>();
+        collectReferencedNames(type, names);
+        return new TypeRef(type.asString(), names);
+    }
+
+    private void collectReferencedNames(Type type, List<String> names) {
+        if (type.isClassOrInterfaceType()) {
+            ClassOrInterfaceType cit = type.asClassOrInterfaceType();
+            names.add(cit.getNameWithScope());
+
+            // Check generic type arguments (e.g., List<Entity>, ResponseEntity<Entity>)
+            cit.getTypeArguments().ifPresent(args -> args.forEach(arg -> collectReferencedNames(arg, names)));
+        } else if (type.isArrayType()) {
+            collectReferencedNames(type.asArrayType().getComponentType(), names);
+        } else if (type.isWildcardType()) {
+            // Handle wildcards like ? extends Entity or ? super Entity
+            var wildcard = type.asWildcardType();
+            wildcard.getExtendedType().ifPresent(ext -> collectReferencedNames(ext, names));
+            wildcard.getSuperType().ifPresent(sup -> collectReferencedNames(sup, names));
+        }
+    }
+
+    private Set<String> annotationNames(NodeWithAnnotations<?> node) {
+        Set<String> names = new HashSet<>();
+        node.getAnnotations().forEach(a -> names.add(a.getNameAsString()));
+        return names;
+    }
+
+    private boolean hasAnnotation(NodeWithAnnotations<?> node, String annotationName) {
+        return node.getAnnotations().stream()
+            .anyMatch(a -> a.getNameAsString().equals(annotationName));
+    }
+
+    private String getRequestMappingPath(ClassOrInterfaceDeclaration cls) {
+        return cls.getAnnotations().stream()
+            .filter(a -> a.getNameAsString().equals("RequestMapping"))
+            .findFirst()
+            .map(this::extractPathFromAnnotation)
+            .orElse("");
+    }
+
+    private String getMappingPath(MethodDeclaration method, String annotationName) {
+        return method.getAnnotations().stream()
+            .filter(a -> a.getNameAsString().equals(annotationName))
+            .findFirst()
+            .map(this::extractPathFromAnnotation)
+            .orElse("");
+    }
+
+    private String extractPathFromAnnotation(AnnotationExpr annotation) {
+        if (annotation.isSingleMemberAnnotationExpr()) {
+            return extractStringValue(annotation.asSingleMemberAnnotationExpr().getMemberValue());
+        } else if (annotation.isNormalAnnotationExpr()) {
+            for (MemberValuePair pair : annotation.asNormalAnnotationExpr().getPairs()) {
+                if (pair.getNameAsString().equals("value") || pair.getNameAsString().equals("path")) {
+                    return extractStringValue(pair.getValue());
+                }
+            }
+        }
+        return "";
+    }
+
+    private String extractStringValue(Expression expr) {
+        if (expr.isStringLiteralExpr()) {
+            return expr.asStringLiteralExpr().getValue();
+        } else if (expr.isArrayInitializerExpr()) {
+            // Take first element if it's an array
+            return expr.asArrayInitializerExpr().getValues().stream()
+                .findFirst()
+                .map(this::extractStringValue)
+                .orElse("");
+        }
+        return "";
+    }
+
+    /** Source content that could not be reduced to a {@link FileSummary}. */
+    public static class UnparseableSourceException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        UnparseableSourceException(String cause, Throwable underlying) {
+            super(cause, underlying);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package de.tum.cit.aet.codestats;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A set of Java source files to analyze, either a directory on disk or a commit in a git repository.
+ * Paths are always reported relative to the source root (e.g. {@code de/tum/cit/aet/artemis/...}).
+ */
+public interface SourceTree extends AutoCloseable {
+
+    /** A source file; {@code blobSha} is the git blob id if known without reading the content, else null. */
+    record SourceFile(String relativePath, String blobSha) {}
+
+    /** Lists all {@code .java} files, sorted by relative path. */
+    List<SourceFile> files() throws IOException;
+
+    /** Reads the raw content of a file. Safe to call from several threads. */
+    byte[] read(SourceFile file) throws IOException;
+
+    /**
+     * The sources in {@code directory}, given relative to this tree's root (e.g. the tests in
+     * {@code ../../test/java}), from the same commit.
+     */
+    SourceTree sibling(String directory) throws IOException;
+
+    /** The commit these sources belong to, or null if unknown. */
+    default String commit() {
+        return null;
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+}
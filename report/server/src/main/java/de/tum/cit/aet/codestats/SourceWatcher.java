@@ -0,0 +1,261 @@
+package de.tum.cit.aet.codestats;
+
+import de.tum.cit.aet.codestats.FileSummary.*;
+import de.tum.cit.aet.codestats.SourceTree.SourceFile;
+import de.tum.cit.aet.codestats.ViolationReportWriter.Totals;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Keeps the analysis of a source directory in memory and updates the report whenever files
+ * change, for local feedback while fixing violations.
+ * <p>
+ * Only changed files are parsed again. If a change leaves every fact other files can observe
+ * untouched (declared types, entities, imports, superclasses and DTO fields), only the changed
+ * files are analyzed again. Otherwise the type index and graph are rebuilt from the summaries in
+ * memory, and the files referring to a changed type, or to a type whose reachable entities
+ * changed, are analyzed again as well. A file gaining or losing {@code @Entity} thus updates the
+ * endpoints and DTOs using it without reading the rest of the tree.
+ */
+final class SourceWatcher {
+
+    /** Editors save in bursts (temporary file, rename, touch); events are collected until this long quiet. */
+    private static final long SETTLE_MILLIS = 50;
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private final DtoViolationExtractor extractor;
+    private final Path sourceRoot;
+    private final Path outputPath;
+    private final DirectorySourceTree sourceTree;
+
+    private final Map<String, FileSummary> summaries = new TreeMap<>();
+    private final Map<String, ViolationCollector> fileViolations = new HashMap<>();
+    /** Files whose checked types mention a simple name, keyed by that name. */
+    private final Map<String, Set<String>> referencingFiles = new HashMap<>();
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private int total;
+
+    /** Takes over the state of {@code extractor}, which must just have analyzed {@code sourceRoot}. */
+    SourceWatcher(DtoViolationExtractor extractor, Path sourceRoot, Path outputPath) {
+        this.extractor = extractor;
+        this.sourceRoot = sourceRoot;
+        this.outputPath = outputPath;
+        this.sourceTree = new DirectorySourceTree(sourceRoot);
+
+        for (FileSummary summary : extractor.summaries()) {
+            summaries.put(summary.relativePath(), summary);
+            addReferences(summary);
+            fileViolations.put(summary.relativePath(), analyze(summary));
+        }
+        total = merged().total();
+    }
+
+    /** Watches the source directory until the process is stopped. */
+    void run() throws IOException, InterruptedException {
+        try (WatchService watchService = sourceRoot.getFileSystem().newWatchService()) {
+            register(watchService, sourceRoot);
+            System.out.println("\n=== WATCHING " + sourceRoot + " (" + directories.size() + " directories), Ctrl+C to stop ===");
+
+            while (true) {
+                WatchKey key = watchService.take();
+                Set<String> changed = new TreeSet<>();
+                boolean overflow = false;
+                do {
+                    overflow |= collect(watchService, key, changed);
+                } while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null);
+
+                if (overflow) {
+                    // Events were lost; compare against a fresh listing of the tree instead
+                    changed.addAll(summaries.keySet());
+                    sourceTree.files().forEach(file -> changed.add(file.relativePath()));
+                }
+                if (!changed.isEmpty()) update(changed);
+            }
+        }
+    }
+
+    /** Adds the files touched by the events of {@code key} to {@code changed}; returns whether events overflowed. */
+    private boolean collect(WatchService watchService, WatchKey key, Set<String> changed) throws IOException {
+        Path directory = directories.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || directory == null) {
+                overflow = true;
+                continue;
+            }
+            Path child = directory.resolve((Path) event.context());
+            String relativePath = relativePath(child);
+            if (relativePath.endsWith(".java")) {
+                changed.add(relativePath);
+            } else {
+                // A directory appeared, disappeared or was renamed: everything below it changed
+                String prefix = relativePath + "/";
+                summaries.keySet().stream().filter(path -> path.startsWith(prefix)).forEach(changed::add);
+                if (event.kind() == ENTRY_CREATE && Files.isDirectory(child)) {
+                    register(watchService, child);
+                    try (Stream<Path> walk = Files.walk(child)) {
+                        walk.filter(p -> p.toString().endsWith(".java")).forEach(p -> changed.add(relativePath(p)));
+                    }
+                }
+            }
+        }
+        if (!key.reset()) directories.remove(key);
+        return overflow;
+    }
+
+    private void register(WatchService watchService, Path root) throws IOException {
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path directory : walk.filter(Files::isDirectory).toList()) {
+                directories.put(directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), directory);
+            }
+        }
+    }
+
+    /** Parses the {@code changed} files again and updates the violations and the report. */
+    void update(Set<String> changed) throws IOException {
+        long start = System.nanoTime();
+        Set<String> reanalyze = new TreeSet<>();
+        Set<String> changedNames = new HashSet<>();
+        boolean declarationsChanged = false;
+
+        for (String relativePath : changed) {
+            FileSummary before = summaries.get(relativePath);
+            FileSummary after = Files.isRegularFile(sourceRoot.resolve(relativePath))
+                ? extractor.summarizeFile(sourceTree, new SourceFile(relativePath, null)).orElse(null)
+                : null;
+            // Saves without effective changes, e.g. of comments or method bodies
+            if (Objects.equals(before, after)) continue;
+
+            removeReferences(before);
+            if (after != null) {
+                summaries.put(relativePath, after);
+                addReferences(after);
+            } else {
+                summaries.remove(relativePath);
+            }
+            reanalyze.add(relativePath);
+
+            if (!declarations(before).equals(declarations(after))) {
+                declarationsChanged = true;
+                declaredNames(before, changedNames);
+                declaredNames(after, changedNames);
+            }
+        }
+        if (reanalyze.isEmpty()) return;
+
+        if (declarationsChanged) {
+            Map<String, Map<String, List<String>>> reachableBefore = extractor.typeGraph().reachability();
+            extractor.indexAll(summaries.values());
+            Map<String, Map<String, List<String>>> reachableAfter = extractor.typeGraph().reachability();
+
+            Set<String> types = new HashSet<>(reachableBefore.keySet());
+            types.addAll(reachableAfter.keySet());
+            for (String type : types) {
+                if (!Objects.equals(reachableBefore.get(type), reachableAfter.get(type))) {
+                    changedNames.add(type.substring(type.lastIndexOf('.') + 1));
+                }
+            }
+            for (String name : changedNames) {
+                reanalyze.addAll(referencingFiles.getOrDefault(name, Set.of()));
+            }
+        }
+
+        for (String relativePath : reanalyze) {
+            FileSummary summary = summaries.get(relativePath);
+            if (summary != null) {
+                fileViolations.put(relativePath, analyze(summary));
+            } else {
+                fileViolations.remove(relativePath);
+            }
+        }
+
+        int previous = total;
+        total = merged().total();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("[%s] %d changed, %d analyzed in %d ms: %d violations (%+d)%n",
+            LocalTime.now().format(TIME), changed.size(), reanalyze.size(), millis, total, total - previous);
+    }
+
+    private ViolationCollector analyze(FileSummary summary) {
+        ViolationCollector collector = new ViolationCollector();
+        extractor.analyzeFile(summary, collector);
+        return collector;
+    }
+
+    /** Merges the per-file violations and writes the report. */
+    private Totals merged() {
+        ViolationCollector violations = new ViolationCollector();
+        new TreeMap<>(fileViolations).values().forEach(violations::merge);
+        violations.sort();
+        try {
+            return extractor.writeReport(violations, outputPath);
+        } catch (IOException e) {
+            System.err.println("ERROR: Cannot write " + outputPath + ": " + e.getMessage());
+            return new Totals(0, 0, 0);
+        }
+    }
+
+    /** The facts of {@code summary} other files' results depend on; empty for a missing file. */
+    private static List<Object> declarations(FileSummary summary) {
+        if (summary == null) return List.of();
+        List<Object> facts = new ArrayList<>(List.of(summary.packageName(), summary.imports(), summary.declaredTypes()));
+        for (TypeSummary type : summary.types()) {
+            facts.add(type.nestedName());
+            facts.add(DtoViolationExtractor.isEntity(type));
+            facts.add(Objects.toString(type.superclass(), ""));
+            type.fields().forEach(field -> facts.add(field.name() + ":" + field.type().referencedNames()));
+        }
+        return facts;
+    }
+
+    private static void declaredNames(FileSummary summary, Set<String> names) {
+        if (summary == null) return;
+        for (String declared : summary.declaredTypes()) {
+            names.add(declared.substring(declared.lastIndexOf('.') + 1));
+        }
+    }
+
+    private void addReferences(FileSummary summary) {
+        referencedNames(summary).forEach(name ->
+            referencingFiles.computeIfAbsent(name, k -> new HashSet<>()).add(summary.relativePath()));
+    }
+
+    private void removeReferences(FileSummary summary) {
+        if (summary == null) return;
+        referencedNames(summary).forEach(name -> {
+            Set<String> files = referencingFiles.get(name);
+            if (files != null && files.remove(summary.relativePath()) && files.isEmpty()) referencingFiles.remove(name);
+        });
+    }
+
+    /** Every segment of every type name written in the endpoints and fields {@code summary}'s checks look at. */
+    private static Set<String> referencedNames(FileSummary summary) {
+        Set<String> names = new HashSet<>();
+        for (TypeSummary type : summary.types()) {
+            for (EndpointSummary endpoint : type.endpoints()) {
+                addSegments(endpoint.returnType(), names);
+                endpoint.parameters().forEach(parameter -> addSegments(parameter.type(), names));
+            }
+            type.fields().forEach(field -> addSegments(field.type(), names));
+        }
+        return names;
+    }
+
+    private static void addSegments(TypeRef type, Set<String> names) {
+        for (String name : type.referencedNames()) {
+            names.addAll(Arrays.asList(name.split("\\.")));
+        }
+    }
+
+    private String relativePath(Path file) {
+        return sourceRoot.relativize(file).toString().replace('\\', '/');
+    }
+}
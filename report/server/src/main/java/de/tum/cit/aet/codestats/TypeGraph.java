@@ -0,0 +1,96 @@
+package de.tum.cit.aet.codestats;
+
+import java.util.*;
+
+/**
+ * Which entities each project type leads to, and through which types. The edges go from a DTO
+ * to the types of its fields and from a class to its superclass; entities end a path, so a
+ * DTO holding an entity leads to that entity but not to the entities the entity references.
+ * <p>
+ * Reachability is computed once for the whole graph by {@link #computeReachability}: one
+ * breadth-first walk backwards from each entity, which finds a shortest path for every pair
+ * and copes with cycles between DTOs. Afterwards the graph is only read, so the analysis workers
+ * look up any type in constant time, however many endpoints and fields refer to it.
+ */
+final class TypeGraph {
+
+    /** An edge from {@code from} to {@code to}; {@code hop} is how it appears in a violation path. */
+    private record Edge(String from, String hop, String to) {}
+
+    private final Set<String> entities;
+    private final Map<String, List<Edge>> incoming = new HashMap<>();
+    private Map<String, Map<String, List<String>>> reachable = Map.of();
+
+    /** @param entities qualified names of the entities, where paths end */
+    TypeGraph(Set<String> entities) {
+        this.entities = entities;
+    }
+
+    /** A graph whose reachability was computed elsewhere, e.g. read back from a serialized index. */
+    static TypeGraph of(Set<String> entities, Map<String, Map<String, List<String>>> reachable) {
+        TypeGraph graph = new TypeGraph(entities);
+        graph.reachable = reachable;
+        return graph;
+    }
+
+    /** Adds the edge for DTO {@code dto}'s field {@code fieldName} of type {@code fieldType}. */
+    void addField(String dto, String fieldName, String fieldType) {
+        addEdge(new Edge(dto, simpleName(dto) + "." + fieldName, fieldType));
+    }
+
+    /** Adds the edge from {@code type} to the class it extends. */
+    void addSuperclass(String type, String superclass) {
+        addEdge(new Edge(type, simpleName(type) + " extends", superclass));
+    }
+
+    private void addEdge(Edge edge) {
+        // Nothing leads out of an entity, and a type reaching itself adds nothing
+        if (entities.contains(edge.from()) || edge.from().equals(edge.to())) return;
+        incoming.computeIfAbsent(edge.to(), k -> new ArrayList<>()).add(edge);
+    }
+
+    /** Computes the entities reachable from every type; call once after all edges are added. */
+    void computeReachability() {
+        Map<String, Map<String, List<String>>> result = new HashMap<>();
+        for (String entity : new TreeSet<>(entities)) {
+            if (!incoming.containsKey(entity)) continue;
+
+            // Walking backwards, each type's path is its edge followed by the path of the edge's target
+            Map<String, List<String>> pathTo = new HashMap<>();
+            pathTo.put(entity, List.of());
+            Deque<String> queue = new ArrayDeque<>(List.of(entity));
+            while (!queue.isEmpty()) {
+                String type = queue.poll();
+                for (Edge edge : incoming.getOrDefault(type, List.of())) {
+                    if (pathTo.containsKey(edge.from())) continue;
+
+                    List<String> hops = new ArrayList<>(pathTo.get(type).size() + 1);
+                    hops.add(edge.hop());
+                    hops.addAll(pathTo.get(type));
+                    List<String> path = List.copyOf(hops);
+                    pathTo.put(edge.from(), path);
+                    result.computeIfAbsent(edge.from(), k -> new LinkedHashMap<>()).put(entity, path);
+                    queue.add(edge.from());
+                }
+            }
+        }
+        reachable = result;
+    }
+
+    /**
+     * @return the entities reachable from non-entity type {@code type}, each with the hops of a
+     *         shortest path to it, in entity name order; empty for unknown types
+     */
+    Map<String, List<String>> entitiesReachableFrom(String type) {
+        return reachable.getOrDefault(type, Map.of());
+    }
+
+    /** Every type that reaches an entity, with {@link #entitiesReachableFrom} of each. */
+    Map<String, Map<String, List<String>>> reachability() {
+        return Collections.unmodifiableMap(reachable);
+    }
+
+    private static String simpleName(String qualifiedName) {
+        return qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+    }
+}
@@ -0,0 +1,139 @@
+package de.tum.cit.aet.codestats;
+
+import java.util.*;
+
+/**
+ * Project-wide symbol table: every type declared in the analyzed sources, with the entities
+ * among them. Built once per tree from the {@link FileSummary summaries}; afterwards it is only
+ * read, so workers can create scopes and resolve concurrently.
+ * <p>
+ * Names are interned, so the many summaries and scopes that mention the same package or type
+ * share one string, and every lookup is a hash probe on a fully qualified name.
+ */
+final class TypeIndex {
+
+    private final Map<String, String> names = new HashMap<>();
+    private final Set<String> types = new HashSet<>();
+    private final Set<String> entities = new HashSet<>();
+
+    /** Registers every type {@code summary} declares. */
+    void addDeclarations(FileSummary summary) {
+        for (String declared : summary.declaredTypes()) {
+            types.add(qualify(summary.packageName(), declared));
+        }
+    }
+
+    /** Marks the type {@code nestedName} declared in {@code packageName} as an entity; returns its qualified name. */
+    String addEntity(String packageName, String nestedName) {
+        String qualifiedName = qualify(packageName, nestedName);
+        types.add(qualifiedName);
+        entities.add(qualifiedName);
+        return qualifiedName;
+    }
+
+    /** Registers a type by its qualified name, e.g. as read back from a serialized index. */
+    void add(String qualifiedName, boolean entity) {
+        String name = intern(qualifiedName);
+        types.add(name);
+        if (entity) entities.add(name);
+    }
+
+    boolean contains(String qualifiedName) {
+        return types.contains(qualifiedName);
+    }
+
+    boolean isEntity(String qualifiedName) {
+        return entities.contains(qualifiedName);
+    }
+
+    int entityCount() {
+        return entities.size();
+    }
+
+    Set<String> entities() {
+        return Collections.unmodifiableSet(entities);
+    }
+
+    /** Every indexed type, entities included. */
+    Set<String> types() {
+        return Collections.unmodifiableSet(types);
+    }
+
+    /** Qualified name of the type {@code nestedName} declared in {@code packageName}. */
+    String qualifiedName(String packageName, String nestedName) {
+        return qualify(packageName, nestedName);
+    }
+
+    /** The names visible in {@code summary}'s file; build once per file and reuse for all its references. */
+    Scope scope(FileSummary summary) {
+        return new Scope(summary);
+    }
+
+    private String qualify(String packageName, String name) {
+        return intern(packageName.isEmpty() ? name : packageName + "." + name);
+    }
+
+    private String intern(String name) {
+        String existing = names.putIfAbsent(name, name);
+        return existing != null ? existing : name;
+    }
+
+    /**
+     * Resolves names as written in one file, following Java's precedence: types declared in the
+     * file itself, single-type imports, the file's own package, then on-demand imports of packages
+     * or of a type's members. Qualified names resolve their first segment the same way and fall
+     * back to being read as fully qualified.
+     */
+    final class Scope {
+        private final String packageName;
+        private final Map<String, String> fileTypes = new HashMap<>();
+        private final Map<String, String> singleImports = new HashMap<>();
+        private final List<String> onDemandImports = new ArrayList<>();
+
+        private Scope(FileSummary summary) {
+            packageName = summary.packageName();
+            for (String declared : summary.declaredTypes()) {
+                String simpleName = declared.substring(declared.lastIndexOf('.') + 1);
+                // Declarations come in source order; the first of a simple name wins
+                String qualifiedName = packageName.isEmpty() ? declared : packageName + "." + declared;
+                fileTypes.putIfAbsent(simpleName, names.getOrDefault(qualifiedName, qualifiedName));
+            }
+            for (String imported : summary.imports()) {
+                if (imported.endsWith(".*")) {
+                    onDemandImports.add(imported.substring(0, imported.length() - 2));
+                } else {
+                    singleImports.putIfAbsent(imported.substring(imported.lastIndexOf('.') + 1), imported);
+                }
+            }
+        }
+
+        /**
+         * @return the qualified name {@code writtenName} refers to, or null for a simple name that
+         *         denotes no type of the project (e.g. from {@code java.lang} or a type variable)
+         */
+        String resolve(String writtenName) {
+            int dot = writtenName.indexOf('.');
+            if (dot < 0) return resolveSimple(writtenName);
+
+            String outer = resolveSimple(writtenName.substring(0, dot));
+            return outer != null ? outer + writtenName.substring(dot) : writtenName;
+        }
+
+        private String resolveSimple(String simpleName) {
+            String resolved = fileTypes.get(simpleName);
+            if (resolved != null) return resolved;
+
+            resolved = singleImports.get(simpleName);
+            if (resolved != null) return resolved;
+
+            String samePackage = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+            if (types.contains(samePackage)) return samePackage;
+
+            for (String onDemand : onDemandImports) {
+                String candidate = onDemand + "." + simpleName;
+                if (types.contains(candidate)) return candidate;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package de.tum.cit.aet.codestats;
+
+import java.util.List;
+
+/**
+ * A single DTO violation. Components map one-to-one, in order, onto the JSON detail objects
+ * consumed by the dashboard ({@code EntityReturnViolation} etc. in {@code report/types.ts}).
+ * <p>
+ * {@code path} is empty when the entity is referenced directly. Otherwise the entity is reached
+ * through other types, and {@code path} lists the hops from the referenced type to it: a DTO
+ * field ("FooDTO.bar") or a superclass ("SpecialQuiz extends"). It is omitted from the JSON
+ * when empty, and reports written before it existed read back as empty. Such transitive
+ * violations repeat a direct one elsewhere (the DTO field holding the entity), so reports count
+ * them separately from the direct ones ArchUnit checks.
+ */
+public sealed interface Violation permits Violation.EntityReturn, Violation.EntityInput, Violation.DtoEntityField {
+
+    String entityClass();
+
+    List<String> path();
+
+    /** Whether the entity is referenced directly, i.e. {@code path} is empty. */
+    default boolean isDirect() {
+        return path().isEmpty();
+    }
+
+    String file();
+
+    int line();
+
+    /** A REST endpoint returning an entity, directly, inside a generic wrapper or through a DTO. */
+    record EntityReturn(
+        String controller,
+        String method,
+        String endpoint,
+        String returnType,
+        String entityClass,
+        List<String> path,
+        String file,
+        int line
+    ) implements Violation {
+        public EntityReturn {
+            path = path == null ? List.of() : List.copyOf(path);
+        }
+    }
+
+    /** A REST endpoint accepting an entity as {@code @RequestBody} or {@code @RequestPart}. */
+    record EntityInput(
+        String controller,
+        String method,
+        String endpoint,
+        String parameterName,
+        String parameterType,
+        String annotationType,
+        String entityClass,
+        List<String> path,
+        String file,
+        int line
+    ) implements Violation {
+        public EntityInput {
+            path = path == null ? List.of() : List.copyOf(path);
+        }
+    }
+
+    /** A DTO field or record component holding an entity, directly or through another DTO. */
+    record DtoEntityField(
+        String dtoClass,
+        String fieldName,
+        String fieldType,
+        String entityClass,
+        List<String> path,
+        String file,
+        int line
+    ) implements Violation {
+        public DtoEntityField {
+            path = path == null ? List.of() : List.copyOf(path);
+        }
+    }
+}
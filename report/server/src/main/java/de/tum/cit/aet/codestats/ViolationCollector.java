@@ -0,0 +1,94 @@
+package de.tum.cit.aet.codestats;
+
+import de.tum.cit.aet.codestats.Rule.Finding;
+import de.tum.cit.aet.codestats.Violation.*;
+
+import java.util.*;
+
+/**
+ * Per-worker sink for violations and counters. Each worker thread fills its own collector
+ * without synchronization; collectors are merged once all workers are done.
+ */
+public class ViolationCollector {
+
+    /**
+     * Total order on violations: file, line, entity, then all remaining components. A module's list
+     * is therefore fully determined by its contents, independent of thread count, scheduling and
+     * discovery order, which also lets history deltas be applied as plain set differences.
+     */
+    static final Comparator<Violation> CANONICAL_ORDER = Comparator
+        .comparing(Violation::file)
+        .thenComparingInt(Violation::line)
+        .thenComparing(Violation::entityClass)
+        .thenComparing(Object::toString);
+
+    /** Total order on rule findings: file, line, then all remaining components. */
+    static final Comparator<Finding> FINDING_ORDER = Comparator
+        .comparing(Finding::file)
+        .thenComparingInt(Finding::line)
+        .thenComparing(Object::toString);
+
+    final Map<String, List<EntityReturn>> moduleReturnViolations = new HashMap<>();
+    final Map<String, List<EntityInput>> moduleInputViolations = new HashMap<>();
+    final Map<String, List<DtoEntityField>> moduleFieldViolations = new HashMap<>();
+    /** Findings of the rules with their own report section: rule id to module to findings. */
+    final Map<String, Map<String, List<Finding>>> ruleFindings = new HashMap<>();
+    int controllersFound = 0;
+    int dtosFound = 0;
+
+    void addReturnViolation(String module, EntityReturn violation) {
+        moduleReturnViolations.computeIfAbsent(module, k -> new ArrayList<>()).add(violation);
+    }
+
+    void addInputViolation(String module, EntityInput violation) {
+        moduleInputViolations.computeIfAbsent(module, k -> new ArrayList<>()).add(violation);
+    }
+
+    void addFieldViolation(String module, DtoEntityField violation) {
+        moduleFieldViolations.computeIfAbsent(module, k -> new ArrayList<>()).add(violation);
+    }
+
+    void addFinding(String rule, String module, Finding finding) {
+        ruleFindings.computeIfAbsent(rule, k -> new HashMap<>())
+            .computeIfAbsent(module, k -> new ArrayList<>()).add(finding);
+    }
+
+    /** The number of violations reaching their entity through other types, over all modules and checks. */
+    int transitiveCount() {
+        int count = 0;
+        for (Map<String, ? extends List<? extends Violation>> byModule : List.of(
+                moduleReturnViolations, moduleInputViolations, moduleFieldViolations)) {
+            for (List<? extends Violation> violations : byModule.values()) {
+                for (Violation violation : violations) {
+                    if (!violation.isDirect()) count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /** Appends everything collected by {@code other} to this collector. */
+    void merge(ViolationCollector other) {
+        mergeInto(moduleReturnViolations, other.moduleReturnViolations);
+        mergeInto(moduleInputViolations, other.moduleInputViolations);
+        mergeInto(moduleFieldViolations, other.moduleFieldViolations);
+        other.ruleFindings.forEach((rule, findings) ->
+            findings.forEach((module, list) -> ruleFindings.computeIfAbsent(rule, k -> new HashMap<>())
+                .computeIfAbsent(module, k -> new ArrayList<>()).addAll(list)));
+        controllersFound += other.controllersFound;
+        dtosFound += other.dtosFound;
+    }
+
+    /** Sorts every module's violations into {@link #CANONICAL_ORDER}, and findings into {@link #FINDING_ORDER}. */
+    void sort() {
+        moduleReturnViolations.values().forEach(list -> list.sort(CANONICAL_ORDER));
+        moduleInputViolations.values().forEach(list -> list.sort(CANONICAL_ORDER));
+        moduleFieldViolations.values().forEach(list -> list.sort(CANONICAL_ORDER));
+        ruleFindings.values().forEach(modules -> modules.values().forEach(list -> list.sort(FINDING_ORDER)));
+    }
+
+    private static <V extends Violation> void mergeInto(Map<String, List<V>> target, Map<String, List<V>> source) {
+        source.forEach((module, violations) ->
+            target.computeIfAbsent(module, k -> new ArrayList<>()).addAll(violations));
+    }
+}
@@ -0,0 +1,460 @@
+package de.tum.cit.aet.codestats;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import de.tum.cit.aet.codestats.Rule.Finding;
+import de.tum.cit.aet.codestats.Violation.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Delta-encoded store of violation reports over a sequence of commits.
+ * <p>
+ * Every {@code keyframeInterval}-th commit is stored as a full report in {@code keyframes/};
+ * all others are stored in {@code deltas/} as the violations added and removed relative to the
+ * commit before them. {@code index.json} lists the commits in commit date order, each with its
+ * date, base commit and keyframe, so any report is rebuilt from one keyframe plus at most
+ * {@code keyframeInterval - 1} small deltas. Storage therefore grows with churn, not with the
+ * number of commits.
+ * <p>
+ * The history is chronological however commits are appended: a commit older than the newest one,
+ * e.g. from a backfill, is inserted at its date and the deltas up to the next keyframe are
+ * re-encoded against their new predecessors. Commits appended without a date, and those of
+ * indexes written before dates were recorded, stay where they are; later commits go after them.
+ * <p>
+ * Usage: {@code ViolationHistory <historyDir> reconstruct <commit> <outputFile>} or
+ * {@code ViolationHistory <historyDir> import <snapshotDir>} to seed the store from existing
+ * {@code dtoViolations_*.json} snapshots.
+ */
+public class ViolationHistory {
+
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 50;
+    private static final int FORMAT_VERSION = 1;
+    private static final Gson GSON = new Gson();
+
+    /** One appended commit with its commit date in UTC, if known; {@code base} is null for keyframes. */
+    public record Entry(String commit, String date, String file, String keyframe, String base) {
+        public boolean isKeyframe() {
+            return base == null;
+        }
+    }
+
+    private final Path dir;
+    private final int keyframeInterval;
+    private final Path repositoryDir;
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, Entry> entriesByCommit = new HashMap<>();
+    private final ViolationReportWriter keyframeWriter = new ViolationReportWriter(false, false);
+
+    // Most recently appended or reconstructed report, so consecutive appends never re-read the chain
+    private String lastCommit;
+    private ViolationReport lastReport;
+
+    private ViolationHistory(Path dir, int keyframeInterval, Path repositoryDir) {
+        this.dir = dir;
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+        this.repositoryDir = repositoryDir;
+    }
+
+    /** Opens the store in {@code dir}, creating an empty one if there is no index yet. */
+    public static ViolationHistory open(Path dir, int keyframeInterval) throws IOException {
+        return open(dir, keyframeInterval, null);
+    }
+
+    /**
+     * Like {@link #open(Path, int)}, looking up the dates of appended commits in the repository
+     * containing {@code repositoryDir}.
+     */
+    public static ViolationHistory open(Path dir, int keyframeInterval, Path repositoryDir) throws IOException {
+        ViolationHistory history = new ViolationHistory(dir, keyframeInterval, repositoryDir);
+        Path index = dir.resolve("index.json");
+        if (Files.exists(index)) {
+            try (Reader reader = Files.newBufferedReader(index)) {
+                IndexJson json = GSON.fromJson(reader, IndexJson.class);
+                if (json.version != FORMAT_VERSION) {
+                    throw new IOException("Unsupported history format " + json.version + " in " + index);
+                }
+                json.commits.forEach(history::addEntry);
+            }
+        }
+        return history;
+    }
+
+    public List<Entry> entries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    public boolean contains(String commit) {
+        return entriesByCommit.containsKey(commit);
+    }
+
+    /**
+     * Adds the report of {@code commit} at its commit date, looked up in the repository the history
+     * was opened with; without one, the commit is appended after the newest.
+     */
+    public void append(String commit, ViolationReport report) throws IOException {
+        if (contains(commit)) return;
+        append(commit, repositoryDir != null ? GitRepository.commitDate(repositoryDir, commit) : null, report);
+    }
+
+    /**
+     * Adds the report of {@code commit} after every commit not newer than {@code date} (UTC, null
+     * for after the newest), as a delta against the commit before it or as a new keyframe once that
+     * chain reaches the keyframe interval. The deltas following it up to the next keyframe are
+     * re-encoded against their new predecessors. Re-appending a known commit is a no-op.
+     */
+    public void append(String commit, String date, ViolationReport report) throws IOException {
+        if (contains(commit)) return;
+
+        int position = insertionPoint(date);
+        // Rebuild the reports of the deltas that will follow the new commit before their bases change
+        List<Entry> following = new ArrayList<>();
+        List<ViolationReport> followingReports = new ArrayList<>();
+        for (int i = position; i < entries.size() && !entries.get(i).isKeyframe(); i++) {
+            Entry next = entries.get(i);
+            ViolationReport nextReport = following.isEmpty()
+                ? reconstruct(next.commit())
+                : apply(followingReports.get(following.size() - 1), readDelta(next));
+            following.add(next);
+            followingReports.add(nextReport);
+        }
+
+        Entry entry = encode(position == 0 ? null : entries.get(position - 1), commit, date, report);
+        entries.add(position, entry);
+        entriesByCommit.put(commit, entry);
+
+        List<Path> stale = new ArrayList<>();
+        for (int k = 0; k < following.size(); k++) {
+            Entry old = following.get(k);
+            Entry reencoded = encode(entries.get(position + k), old.commit(), old.date(), followingReports.get(k));
+            if (!reencoded.file().equals(old.file())) stale.add(dir.resolve(old.file()));
+            entries.set(position + k + 1, reencoded);
+            entriesByCommit.put(reencoded.commit(), reencoded);
+        }
+
+        writeIndex();
+        for (Path file : stale) Files.deleteIfExists(file);
+        if (!following.isEmpty()) {
+            System.out.println("History: inserted " + commit + " before " + following.size() + " newer commits");
+        }
+    }
+
+    /** The index after the last entry not newer than {@code date}; undated entries are never passed. */
+    private int insertionPoint(String date) {
+        int position = entries.size();
+        if (date == null) return position;
+        Instant instant = Instant.parse(date);
+        while (position > 0) {
+            String previousDate = entries.get(position - 1).date();
+            if (previousDate == null || !Instant.parse(previousDate).isAfter(instant)) break;
+            position--;
+        }
+        return position;
+    }
+
+    /** Writes {@code report} as the file of a new entry following {@code previous} and returns that entry. */
+    private Entry encode(Entry previous, String commit, String date, ViolationReport report) throws IOException {
+        boolean keyframe = previous == null || chainLength(previous) + 1 >= keyframeInterval;
+
+        Entry entry;
+        if (keyframe) {
+            entry = new Entry(commit, date, "keyframes/" + commit + ".json", commit, null);
+            Path file = dir.resolve(entry.file());
+            Files.createDirectories(file.getParent());
+            report.write(file, keyframeWriter);
+        } else {
+            entry = new Entry(commit, date, "deltas/" + commit + ".json", previous.keyframe(), previous.commit());
+            Path file = dir.resolve(entry.file());
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, GSON.toJson(diff(entry, reconstruct(previous.commit()), report)));
+        }
+
+        // The next entry is usually encoded against this one, so keep it without reading it back
+        lastCommit = commit;
+        lastReport = report;
+        return entry;
+    }
+
+    private DeltaJson readDelta(Entry entry) throws IOException {
+        try (Reader reader = Files.newBufferedReader(dir.resolve(entry.file()))) {
+            return GSON.fromJson(reader, DeltaJson.class);
+        }
+    }
+
+    /** Rebuilds the full report of {@code commit} from its keyframe and delta chain. */
+    public ViolationReport reconstruct(String commit) throws IOException {
+        if (commit.equals(lastCommit)) return lastReport;
+
+        Entry entry = entriesByCommit.get(commit);
+        if (entry == null) throw new NoSuchElementException("Commit not in history: " + commit);
+
+        Deque<Entry> chain = new ArrayDeque<>();
+        for (Entry e = entry; !e.isKeyframe(); e = entriesByCommit.get(e.base())) {
+            chain.push(e);
+        }
+
+        ViolationReport report = ViolationReport.read(dir.resolve(entriesByCommit.get(entry.keyframe()).file()));
+        for (Entry delta : chain) {
+            report = apply(report, readDelta(delta));
+        }
+
+        lastCommit = commit;
+        lastReport = report;
+        return report;
+    }
+
+    /** Receives the report of each commit during {@link #replay}. */
+    public interface ReportVisitor {
+        void visit(Entry entry, ViolationReport report) throws IOException;
+    }
+
+    /**
+     * Rebuilds the reports of all commits in commit date order. Each delta is applied once, to the
+     * report of the commit before it, so this reads every file once instead of a chain per commit.
+     */
+    public void replay(ReportVisitor visitor) throws IOException {
+        String previousCommit = null;
+        ViolationReport report = null;
+        for (Entry entry : entries) {
+            if (entry.isKeyframe()) {
+                report = ViolationReport.read(dir.resolve(entry.file()));
+            } else {
+                if (!entry.base().equals(previousCommit)) report = reconstruct(entry.base());
+                report = apply(report, readDelta(entry));
+            }
+            previousCommit = entry.commit();
+            visitor.visit(entry, report);
+        }
+    }
+
+    private int chainLength(Entry entry) {
+        int length = 0;
+        for (Entry e = entry; !e.isKeyframe(); e = entriesByCommit.get(e.base())) {
+            length++;
+        }
+        return length;
+    }
+
+    private void addEntry(Entry entry) {
+        entries.add(entry);
+        entriesByCommit.put(entry.commit(), entry);
+    }
+
+    private void writeIndex() throws IOException {
+        IndexJson json = new IndexJson();
+        json.version = FORMAT_VERSION;
+        json.keyframeInterval = keyframeInterval;
+        json.commits = entries;
+
+        Path index = dir.resolve("index.json");
+        Path tmp = dir.resolve("index.json.tmp");
+        Files.writeString(tmp, new GsonBuilder().setPrettyPrinting().create().toJson(json));
+        Files.move(tmp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static DeltaJson diff(Entry entry, ViolationReport from, ViolationReport to) {
+        DeltaJson delta = new DeltaJson();
+        delta.commit = entry.commit();
+        delta.base = entry.base();
+        if (!from.modules().equals(to.modules())) delta.moduleNames = to.modules();
+
+        Set<String> modules = new TreeSet<>(from.modules());
+        modules.addAll(to.modules());
+        for (String module : modules) {
+            ModuleDelta moduleDelta = new ModuleDelta();
+            moduleDelta.entityReturnDetails = Change.of(from.violations().moduleReturnViolations.get(module),
+                to.violations().moduleReturnViolations.get(module), ViolationCollector.CANONICAL_ORDER);
+            moduleDelta.entityInputDetails = Change.of(from.violations().moduleInputViolations.get(module),
+                to.violations().moduleInputViolations.get(module), ViolationCollector.CANONICAL_ORDER);
+            moduleDelta.dtoEntityFieldDetails = Change.of(from.violations().moduleFieldViolations.get(module),
+                to.violations().moduleFieldViolations.get(module), ViolationCollector.CANONICAL_ORDER);
+
+            if (moduleDelta.entityReturnDetails != null || moduleDelta.entityInputDetails != null
+                    || moduleDelta.dtoEntityFieldDetails != null) {
+                delta.modules.put(module, moduleDelta);
+            }
+        }
+
+        Set<String> rules = new TreeSet<>(from.violations().ruleFindings.keySet());
+        rules.addAll(to.violations().ruleFindings.keySet());
+        for (String rule : rules) {
+            Map<String, List<Finding>> fromFindings = from.violations().ruleFindings.getOrDefault(rule, Map.of());
+            Map<String, List<Finding>> toFindings = to.violations().ruleFindings.getOrDefault(rule, Map.of());
+            Set<String> ruleModules = new TreeSet<>(fromFindings.keySet());
+            ruleModules.addAll(toFindings.keySet());
+            for (String module : ruleModules) {
+                Change<Finding> change = Change.of(fromFindings.get(module), toFindings.get(module), ViolationCollector.FINDING_ORDER);
+                if (change != null) delta.rules.computeIfAbsent(rule, k -> new TreeMap<>()).put(module, change);
+            }
+        }
+        return delta;
+    }
+
+    private static ViolationReport apply(ViolationReport base, DeltaJson delta) {
+        List<String> modules = delta.moduleNames != null ? delta.moduleNames : base.modules();
+        ViolationCollector violations = new ViolationCollector();
+        for (String module : modules) {
+            ModuleDelta moduleDelta = delta.modules.getOrDefault(module, new ModuleDelta());
+            Change.apply(base.violations().moduleReturnViolations.get(module), moduleDelta.entityReturnDetails,
+                ViolationCollector.CANONICAL_ORDER).forEach(v -> violations.addReturnViolation(module, v));
+            Change.apply(base.violations().moduleInputViolations.get(module), moduleDelta.entityInputDetails,
+                ViolationCollector.CANONICAL_ORDER).forEach(v -> violations.addInputViolation(module, v));
+            Change.apply(base.violations().moduleFieldViolations.get(module), moduleDelta.dtoEntityFieldDetails,
+                ViolationCollector.CANONICAL_ORDER).forEach(v -> violations.addFieldViolation(module, v));
+        }
+
+        // Deltas written before rule sections existed have none; the base's findings carry over
+        Map<String, Map<String, Change<Finding>>> ruleDeltas = delta.rules != null ? delta.rules : Map.of();
+        Set<String> rules = new TreeSet<>(base.violations().ruleFindings.keySet());
+        rules.addAll(ruleDeltas.keySet());
+        for (String rule : rules) {
+            Map<String, List<Finding>> baseFindings = base.violations().ruleFindings.getOrDefault(rule, Map.of());
+            Map<String, Change<Finding>> changes = ruleDeltas.getOrDefault(rule, Map.of());
+            Set<String> ruleModules = new TreeSet<>(baseFindings.keySet());
+            ruleModules.addAll(changes.keySet());
+            for (String module : ruleModules) {
+                Change.apply(baseFindings.get(module), changes.get(module), ViolationCollector.FINDING_ORDER)
+                    .forEach(finding -> violations.addFinding(rule, module, finding));
+            }
+        }
+        return new ViolationReport(modules, violations);
+    }
+
+    /** Added and removed entries of one list; lists are in canonical order, so a multiset diff suffices. */
+    private static class Change<V> {
+        List<V> added = new ArrayList<>();
+        List<V> removed = new ArrayList<>();
+
+        /** @return the change from {@code from} to {@code to}, or null if there is none */
+        static <V> Change<V> of(List<V> from, List<V> to, Comparator<? super V> order) {
+            Map<V, Integer> remaining = counts(from);
+            Change<V> change = new Change<>();
+            for (V v : to != null ? to : List.<V>of()) {
+                if (remaining.merge(v, -1, Integer::sum) < 0) change.added.add(v);
+            }
+            remaining.forEach((v, count) -> {
+                for (int i = 0; i < count; i++) change.removed.add(v);
+            });
+            change.removed.sort(order);
+            return change.added.isEmpty() && change.removed.isEmpty() ? null : change;
+        }
+
+        static <V> List<V> apply(List<V> base, Change<V> change, Comparator<? super V> order) {
+            List<V> result = new ArrayList<>(base != null ? base : List.of());
+            if (change == null) return result;
+
+            Map<V, Integer> toRemove = counts(change.removed);
+            result.removeIf(v -> toRemove.merge(v, -1, Integer::sum) >= 0);
+            result.addAll(change.added);
+            result.sort(order);
+            return result;
+        }
+
+        private static <V> Map<V, Integer> counts(List<V> list) {
+            Map<V, Integer> counts = new HashMap<>();
+            if (list != null) list.forEach(v -> counts.merge(v, 1, Integer::sum));
+            return counts;
+        }
+    }
+
+    private static class IndexJson {
+        int version;
+        int keyframeInterval;
+        List<Entry> commits = new ArrayList<>();
+    }
+
+    private static class DeltaJson {
+        String commit;
+        String base;
+        List<String> moduleNames;
+        Map<String, ModuleDelta> modules = new TreeMap<>();
+        Map<String, Map<String, Change<Finding>>> rules = new TreeMap<>();
+    }
+
+    private static class ModuleDelta {
+        Change<EntityReturn> entityReturnDetails;
+        Change<EntityInput> entityInputDetails;
+        Change<DtoEntityField> dtoEntityFieldDetails;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: ViolationHistory <historyDir> reconstruct <commit> <outputFile>");
+            System.err.println("       ViolationHistory <historyDir> import <snapshotDir>");
+            System.exit(1);
+        }
+
+        int interval = Integer.getInteger("history.keyframeInterval", DEFAULT_KEYFRAME_INTERVAL);
+        ViolationHistory history = open(Path.of(args[0]), interval);
+        switch (args[1]) {
+            case "reconstruct" -> {
+                if (args.length < 4) {
+                    System.err.println("ERROR: reconstruct needs <commit> <outputFile>");
+                    System.exit(1);
+                }
+                String commit = history.resolvePrefix(args[2]);
+                history.reconstruct(commit).write(Path.of(args[3]), new ViolationReportWriter(true, args[3].endsWith(".gz")));
+                System.out.println("Reconstructed " + commit + " to " + args[3]);
+            }
+            case "import" -> history.importSnapshots(Path.of(args[2]));
+            default -> {
+                System.err.println("ERROR: Unknown command: " + args[1]);
+                System.exit(1);
+            }
+        }
+    }
+
+    /** Accepts abbreviated commit ids as long as they are unambiguous. */
+    private String resolvePrefix(String commit) {
+        if (contains(commit)) return commit;
+        List<String> matches = entries.stream().map(Entry::commit).filter(c -> c.startsWith(commit)).toList();
+        if (matches.size() != 1) {
+            throw new NoSuchElementException(matches.isEmpty()
+                ? "Commit not in history: " + commit
+                : "Ambiguous commit prefix: " + commit);
+        }
+        return matches.get(0);
+    }
+
+    /**
+     * Adds existing dashboard snapshots at the commit dates in their metadata.
+     * Snapshots of commits already in the history are skipped.
+     */
+    private void importSnapshots(Path snapshotDir) throws IOException {
+        List<Path> snapshots;
+        try (Stream<Path> files = Files.list(snapshotDir)) {
+            snapshots = files.filter(p -> p.getFileName().toString().matches("dtoViolations_.*\\.json"))
+                .sorted()
+                .toList();
+        }
+
+        int imported = 0;
+        for (Path snapshot : snapshots) {
+            String[] commit = readSnapshotCommit(snapshot);
+            if (commit == null || contains(commit[0])) continue;
+            append(commit[0], commit[1], ViolationReport.read(snapshot));
+            imported++;
+        }
+        System.out.println("Imported " + imported + " of " + snapshots.size() + " snapshots into " + dir);
+    }
+
+    /** The commit hash and UTC date (null if missing) of a snapshot, or null if it has no commit. */
+    private static String[] readSnapshotCommit(Path snapshot) throws IOException {
+        try (Reader reader = Files.newBufferedReader(snapshot, StandardCharsets.UTF_8)) {
+            JsonObject root = JsonParser.parseReader(reader).getAsJsonObject();
+            if (!root.has("metadata")) return null;
+            JsonObject artemis = root.getAsJsonObject("metadata").getAsJsonObject("artemis");
+            if (artemis == null || !artemis.has("commitHash")) return null;
+            String date = artemis.has("commitDate") ? GitRepository.utc(artemis.get("commitDate").getAsString()) : null;
+            return new String[] { artemis.get("commitHash").getAsString(), date };
+        }
+    }
+}
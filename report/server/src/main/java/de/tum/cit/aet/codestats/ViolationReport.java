@@ -0,0 +1,134 @@
+package de.tum.cit.aet.codestats;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import de.tum.cit.aet.codestats.Rule.Finding;
+import de.tum.cit.aet.codestats.Violation.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A complete violations report: the ordered module names plus every module's violations.
+ * This is the in-memory form of {@code violations.json}, and can be read back from it.
+ */
+public record ViolationReport(List<String> modules, ViolationCollector violations) {
+
+    private static final Gson GSON = new Gson();
+
+    public ViolationReportWriter.Totals write(Path outputPath, ViolationReportWriter writer) throws IOException {
+        return writer.write(outputPath, modules, violations);
+    }
+
+    /**
+     * Reads an extractor output file or a dashboard snapshot ({@code {metadata, dtoViolations}}),
+     * plain or gzipped. Snapshots produced by threshold parsing carry no details and yield empty lists.
+     */
+    public static ViolationReport read(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+        if (file.toString().endsWith(".gz")) in = new GZIPInputStream(in, 1 << 16);
+
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            JsonObject root = JsonParser.parseReader(reader).getAsJsonObject();
+            if (root.has("dtoViolations")) root = root.getAsJsonObject("dtoViolations");
+            return fromJson(root);
+        }
+    }
+
+    /**
+     * Describes how {@code other} differs from this report, one line per module list change or
+     * violation present on only one side; empty if both are identical.
+     */
+    public List<String> differences(ViolationReport other) {
+        List<String> differences = new ArrayList<>();
+        if (!modules.equals(other.modules)) {
+            differences.add("modules: " + modules + " vs " + other.modules);
+        }
+        Set<String> allModules = new TreeSet<>(modules);
+        allModules.addAll(other.modules);
+        for (String module : allModules) {
+            compare(module, violations.moduleReturnViolations, other.violations.moduleReturnViolations, differences);
+            compare(module, violations.moduleInputViolations, other.violations.moduleInputViolations, differences);
+            compare(module, violations.moduleFieldViolations, other.violations.moduleFieldViolations, differences);
+        }
+        Set<String> allRules = new TreeSet<>(violations.ruleFindings.keySet());
+        allRules.addAll(other.violations.ruleFindings.keySet());
+        for (String rule : allRules) {
+            Map<String, List<Finding>> mine = violations.ruleFindings.getOrDefault(rule, Map.of());
+            Map<String, List<Finding>> theirs = other.violations.ruleFindings.getOrDefault(rule, Map.of());
+            Set<String> ruleModules = new TreeSet<>(mine.keySet());
+            ruleModules.addAll(theirs.keySet());
+            for (String module : ruleModules) {
+                compare(module, mine, theirs, differences, rule + " " + module);
+            }
+        }
+        return differences;
+    }
+
+    private static <V> void compare(String module, Map<String, List<V>> mine, Map<String, List<V>> theirs,
+                                    List<String> differences) {
+        compare(module, mine, theirs, differences, module);
+    }
+
+    private static <V> void compare(String module, Map<String, List<V>> mine, Map<String, List<V>> theirs,
+                                    List<String> differences, String label) {
+        List<V> only = new ArrayList<>(mine.getOrDefault(module, List.of()));
+        List<V> otherOnly = new ArrayList<>(theirs.getOrDefault(module, List.of()));
+        new ArrayList<>(only).forEach(v -> {
+            if (otherOnly.remove(v)) only.remove(v);
+        });
+        only.forEach(v -> differences.add("- " + label + ": " + v));
+        otherOnly.forEach(v -> differences.add("+ " + label + ": " + v));
+    }
+
+    static ViolationReport fromJson(JsonObject root) {
+        ReportJson json = GSON.fromJson(root, ReportJson.class);
+        ViolationCollector violations = new ViolationCollector();
+        List<String> modules = new ArrayList<>();
+        if (json.modules != null) {
+            json.modules.forEach((module, data) -> {
+                modules.add(module);
+                if (data.entityReturnDetails != null) data.entityReturnDetails.forEach(v -> violations.addReturnViolation(module, v));
+                if (data.entityInputDetails != null) data.entityInputDetails.forEach(v -> violations.addInputViolation(module, v));
+                if (data.dtoEntityFieldDetails != null) data.dtoEntityFieldDetails.forEach(v -> violations.addFieldViolation(module, v));
+                // Transitive violations carry their path, so they are told apart from direct ones again on writing
+                ModuleJson transitive = data.transitive;
+                if (transitive == null) return;
+                if (transitive.entityReturnDetails != null) transitive.entityReturnDetails.forEach(v -> violations.addReturnViolation(module, v));
+                if (transitive.entityInputDetails != null) transitive.entityInputDetails.forEach(v -> violations.addInputViolation(module, v));
+                if (transitive.dtoEntityFieldDetails != null) transitive.dtoEntityFieldDetails.forEach(v -> violations.addFieldViolation(module, v));
+            });
+        }
+        if (json.rules != null) {
+            json.rules.forEach((rule, data) -> {
+                if (data.modules != null) data.modules.forEach((module, findings) ->
+                    findings.forEach(finding -> violations.addFinding(rule, module, finding)));
+            });
+        }
+        // Older snapshots predate the canonical order
+        violations.sort();
+        return new ViolationReport(modules, violations);
+    }
+
+    /** JSON layout of a report; only the detail lists are read, counts are derived from them. */
+    private static class ReportJson {
+        LinkedHashMap<String, ModuleJson> modules;
+        LinkedHashMap<String, RuleJson> rules;
+    }
+
+    private static class RuleJson {
+        LinkedHashMap<String, List<Finding>> modules;
+    }
+
+    private static class ModuleJson {
+        List<EntityReturn> entityReturnDetails;
+        List<EntityInput> entityInputDetails;
+        List<DtoEntityField> dtoEntityFieldDetails;
+        ModuleJson transitive;
+    }
+}
@@ -0,0 +1,225 @@
+package de.tum.cit.aet.codestats;
+
+import com.google.gson.stream.JsonWriter;
+
+import de.tum.cit.aet.codestats.Rule.Finding;
+import de.tum.cit.aet.codestats.Violation.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the {@code modules}/{@code totals} report straight from the typed violations to a
+ * buffered {@link JsonWriter}, without building an intermediate object tree.
+ * The pretty-printed output is byte-identical to what {@code Gson#toJson} produced before,
+ * followed by a {@code rules} object with one section per {@link Rule} that found anything:
+ * {@code {"<rule id>": {"total": n, "modules": {"<module>": [findings]}}}}.
+ * <p>
+ * Module counts, details and {@code totals} cover direct violations only, like the ArchUnit tests.
+ * Violations reaching an entity through other types (with a {@code path}) go to a module's
+ * {@code transitive} object, which has the same counts and detail lists and is omitted if empty;
+ * their sum is {@code transitiveTotals}.
+ * <p>
+ * Given {@link ArchitectureThresholds thresholds}, every module with an ArchUnit test also gets a
+ * {@code thresholds} object with the three maximum counts, and the report gets their sum as
+ * {@code thresholds} next to {@code totals}.
+ */
+public class ViolationReportWriter {
+
+    /** Summed violation counts over all modules. */
+    public record Totals(int entityReturnViolations, int entityInputViolations, int dtoEntityFieldViolations) {
+        public int total() {
+            return entityReturnViolations + entityInputViolations + dtoEntityFieldViolations;
+        }
+    }
+
+    private final boolean pretty;
+    private final boolean gzip;
+
+    /**
+     * @param pretty indent the JSON (the default format); compact output has no whitespace at all
+     * @param gzip   compress the output file with gzip
+     */
+    public ViolationReportWriter(boolean pretty, boolean gzip) {
+        this.pretty = pretty;
+        this.gzip = gzip;
+    }
+
+    /** File name extension matching the output format. */
+    public String extension() {
+        return gzip ? ".json.gz" : ".json";
+    }
+
+    /** Writes the report for {@code modules} (in the given order) and returns the totals of the direct violations. */
+    public Totals write(Path outputPath, List<String> modules, ViolationCollector violations) throws IOException {
+        return write(outputPath, modules, violations, null);
+    }
+
+    /** Like {@link #write(Path, List, ViolationCollector)}, with the modules' thresholds if not null. */
+    Totals write(Path outputPath, List<String> modules, ViolationCollector violations,
+                 ArchitectureThresholds thresholds) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(outputPath), 1 << 16);
+        if (gzip) out = new GZIPOutputStream(out, 1 << 16);
+
+        try (JsonWriter json = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            // Gson's defaults: HTML-safe escaping ('<' becomes a unicode escape) and two-space indentation
+            json.setHtmlSafe(true);
+            if (pretty) json.setIndent("  ");
+            return write(json, modules, violations, thresholds);
+        }
+    }
+
+    private Totals write(JsonWriter json, List<String> modules, ViolationCollector violations,
+                         ArchitectureThresholds thresholds) throws IOException {
+        int totalReturn = 0, totalInput = 0, totalField = 0;
+        int transitiveReturn = 0, transitiveInput = 0, transitiveField = 0;
+
+        json.beginObject();
+        json.name("modules").beginObject();
+        for (String module : modules) {
+            List<EntityReturn> returns = violations.moduleReturnViolations.getOrDefault(module, List.of());
+            List<EntityInput> inputs = violations.moduleInputViolations.getOrDefault(module, List.of());
+            List<DtoEntityField> fields = violations.moduleFieldViolations.getOrDefault(module, List.of());
+            List<EntityReturn> directReturns = select(returns, true);
+            List<EntityInput> directInputs = select(inputs, true);
+            List<DtoEntityField> directFields = select(fields, true);
+
+            json.name(module).beginObject();
+            writeCounts(json, directReturns.size(), directInputs.size(), directFields.size());
+            Totals threshold = thresholds != null ? thresholds.byModule().get(module) : null;
+            if (threshold != null) writeCounts(json.name("thresholds"), threshold);
+            writeDetails(json, directReturns, directInputs, directFields);
+
+            List<EntityReturn> transitiveReturns = select(returns, false);
+            List<EntityInput> transitiveInputs = select(inputs, false);
+            List<DtoEntityField> transitiveFields = select(fields, false);
+            if (!transitiveReturns.isEmpty() || !transitiveInputs.isEmpty() || !transitiveFields.isEmpty()) {
+                json.name("transitive").beginObject();
+                writeCounts(json, transitiveReturns.size(), transitiveInputs.size(), transitiveFields.size());
+                writeDetails(json, transitiveReturns, transitiveInputs, transitiveFields);
+                json.endObject();
+            }
+            json.endObject();
+
+            totalReturn += directReturns.size();
+            totalInput += directInputs.size();
+            totalField += directFields.size();
+            transitiveReturn += transitiveReturns.size();
+            transitiveInput += transitiveInputs.size();
+            transitiveField += transitiveFields.size();
+        }
+        json.endObject();
+
+        Totals totals = new Totals(totalReturn, totalInput, totalField);
+        writeCounts(json.name("totals"), totals);
+        if (thresholds != null) writeCounts(json.name("thresholds"), thresholds.totals());
+        writeCounts(json.name("transitiveTotals"), new Totals(transitiveReturn, transitiveInput, transitiveField));
+
+        json.name("rules").beginObject();
+        for (String rule : new TreeSet<>(violations.ruleFindings.keySet())) {
+            Map<String, List<Finding>> findings = violations.ruleFindings.get(rule);
+            json.name(rule).beginObject();
+            json.name("total").value(findings.values().stream().mapToInt(List::size).sum());
+            json.name("modules").beginObject();
+            for (String module : new TreeSet<>(findings.keySet())) {
+                json.name(module).beginArray();
+                for (Finding f : findings.get(module)) {
+                    json.beginObject();
+                    json.name("type").value(f.type());
+                    json.name("member").value(f.member());
+                    json.name("detail").value(f.detail());
+                    json.name("file").value(f.file());
+                    json.name("line").value(f.line());
+                    json.endObject();
+                }
+                json.endArray();
+            }
+            json.endObject();
+            json.endObject();
+        }
+        json.endObject();
+        json.endObject();
+        return totals;
+    }
+
+    private static void writeCounts(JsonWriter json, Totals counts) throws IOException {
+        json.beginObject();
+        writeCounts(json, counts.entityReturnViolations(), counts.entityInputViolations(), counts.dtoEntityFieldViolations());
+        json.endObject();
+    }
+
+    private static void writeCounts(JsonWriter json, int returns, int inputs, int fields) throws IOException {
+        json.name("entityReturnViolations").value(returns);
+        json.name("entityInputViolations").value(inputs);
+        json.name("dtoEntityFieldViolations").value(fields);
+    }
+
+    private static <V extends Violation> List<V> select(List<V> violations, boolean direct) {
+        List<V> selected = new ArrayList<>();
+        for (V violation : violations) {
+            if (violation.isDirect() == direct) selected.add(violation);
+        }
+        return selected;
+    }
+
+    private static void writeDetails(JsonWriter json, List<EntityReturn> returns, List<EntityInput> inputs,
+                                     List<DtoEntityField> fields) throws IOException {
+        json.name("entityReturnDetails").beginArray();
+        for (EntityReturn v : returns) {
+            json.beginObject();
+            json.name("controller").value(v.controller());
+            json.name("method").value(v.method());
+            json.name("endpoint").value(v.endpoint());
+            json.name("returnType").value(v.returnType());
+            json.name("entityClass").value(v.entityClass());
+            writePath(json, v);
+            json.name("file").value(v.file());
+            json.name("line").value(v.line());
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("entityInputDetails").beginArray();
+        for (EntityInput v : inputs) {
+            json.beginObject();
+            json.name("controller").value(v.controller());
+            json.name("method").value(v.method());
+            json.name("endpoint").value(v.endpoint());
+            json.name("parameterName").value(v.parameterName());
+            json.name("parameterType").value(v.parameterType());
+            json.name("annotationType").value(v.annotationType());
+            json.name("entityClass").value(v.entityClass());
+            writePath(json, v);
+            json.name("file").value(v.file());
+            json.name("line").value(v.line());
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("dtoEntityFieldDetails").beginArray();
+        for (DtoEntityField v : fields) {
+            json.beginObject();
+            json.name("dtoClass").value(v.dtoClass());
+            json.name("fieldName").value(v.fieldName());
+            json.name("fieldType").value(v.fieldType());
+            json.name("entityClass").value(v.entityClass());
+            writePath(json, v);
+            json.name("file").value(v.file());
+            json.name("line").value(v.line());
+            json.endObject();
+        }
+        json.endArray();
+    }
+
+    private static void writePath(JsonWriter json, Violation violation) throws IOException {
+        if (violation.path().isEmpty()) return;
+        json.name("path").beginArray();
+        for (String hop : violation.path()) {
+            json.value(hop);
+        }
+        json.endArray();
+    }
+}
@@ -0,0 +1,304 @@
+package de.tum.cit.aet.codestats;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Time series of the violation counts, for trend charts that need no details: one JSON line per
+ * commit with its commit date (UTC), its totals and every module's counts of direct violations,
+ * each as {@code [entityReturnViolations, entityInputViolations, dtoEntityFieldViolations]}:
+ * <pre>
+ *   {"commit":"27d4ada0...","date":"2026-01-02T22:10:32Z","totals":[181,150,140],"modules":{"admin":[3,1,0],...}}
+ * </pre>
+ * Every commit has one row. The last line always holds the newest commit, so appending a commit
+ * newer than it writes one line at the end and reads nothing but that last line; its cost does
+ * not grow with the history. An older commit, e.g. from a backfill, is checked against the
+ * commits of the whole file, read once per instance, and written just before the last line.
+ * Lines are therefore not sorted; readers order by {@code date}.
+ * {@code ViolationRollup rebuild <snapshotDir> <rollupFile>}
+ * regenerates the file from existing {@code dtoViolations_*.json} snapshots in one pass, streaming
+ * the counts out of each snapshot without reading its details into memory.
+ */
+public class ViolationRollup {
+
+    private final Path file;
+    private final Path repositoryDir;
+    // The last line, null until read; it holds the newest commit
+    private LastRow lastRow;
+    // Every commit in the file, loaded only when a commit not newer than the last row is appended
+    private Set<String> commits;
+
+    /** The last line of the file, its commit and date, and the offset it starts at. */
+    private record LastRow(String line, String commit, Instant date, long offset) {}
+
+    /** @param repositoryDir any directory of the analyzed repository, to look up commit dates */
+    public ViolationRollup(Path file, Path repositoryDir) {
+        this.file = file;
+        this.repositoryDir = repositoryDir;
+    }
+
+    /** Adds the counts of {@code report} as the row of {@code commit}, unless the file has a row for it already. */
+    public void append(String commit, ViolationReport report) throws IOException {
+        ViolationCollector violations = report.violations();
+        Map<String, int[]> modules = new LinkedHashMap<>();
+        for (String module : report.modules()) {
+            modules.put(module, new int[] {
+                directCount(violations.moduleReturnViolations.get(module)),
+                directCount(violations.moduleInputViolations.get(module)),
+                directCount(violations.moduleFieldViolations.get(module)) });
+        }
+        append(commit, GitRepository.commitDate(repositoryDir, commit), modules);
+    }
+
+    /** Like the report's counts, without the transitive violations. */
+    private static int directCount(List<? extends Violation> violations) {
+        if (violations == null) return 0;
+        int count = 0;
+        for (Violation violation : violations) {
+            if (violation.isDirect()) count++;
+        }
+        return count;
+    }
+
+    /** @return whether a row was written, i.e. the file had none for {@code commit} */
+    private boolean append(String commit, String date, Map<String, int[]> modules) throws IOException {
+        if (lastRow == null) lastRow = readLastRow();
+        if (commit.equals(lastRow.commit())) return false;
+
+        Instant instant = Instant.parse(date);
+        boolean newest = lastRow.date() == null || instant.isAfter(lastRow.date());
+        if (!newest) {
+            if (commits == null) commits = readCommits();
+            if (commits.contains(commit)) return false;
+        }
+        if (commits != null) commits.add(commit);
+
+        String line = row(commit, date, modules) + "\n";
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        if (newest) {
+            long offset = Files.exists(file) ? Files.size(file) : 0;
+            Files.writeString(file, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            lastRow = new LastRow(line, commit, instant, offset);
+        } else {
+            // Keep the newest commit last by writing the row in place of the last line and that line after it
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.seek(lastRow.offset());
+                raf.write(bytes);
+                raf.write(lastRow.line().getBytes(StandardCharsets.UTF_8));
+            }
+            lastRow = new LastRow(lastRow.line(), lastRow.commit(), lastRow.date(), lastRow.offset() + bytes.length);
+        }
+        return true;
+    }
+
+    private static String row(String commit, String date, Map<String, int[]> modules) throws IOException {
+        int[] totals = new int[3];
+        for (int[] counts : modules.values()) {
+            for (int k = 0; k < 3; k++) totals[k] += counts[k];
+        }
+
+        StringWriter out = new StringWriter();
+        try (JsonWriter json = new JsonWriter(out)) {
+            json.beginObject();
+            json.name("commit").value(commit);
+            json.name("date").value(date);
+            json.name("totals");
+            writeCounts(json, totals);
+            json.name("modules").beginObject();
+            for (Map.Entry<String, int[]> module : modules.entrySet()) {
+                json.name(module.getKey());
+                writeCounts(json, module.getValue());
+            }
+            json.endObject();
+            json.endObject();
+        }
+        return out.toString();
+    }
+
+    private static void writeCounts(JsonWriter json, int[] counts) throws IOException {
+        json.beginArray();
+        for (int count : counts) json.value(count);
+        json.endArray();
+    }
+
+    /** The last line, read backwards from the end of the file; one without commit or date if there is none. */
+    private LastRow readLastRow() throws IOException {
+        LastRow none = new LastRow("", "", null, 0);
+        if (!Files.exists(file)) return none;
+
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            long end = raf.length();
+            // Skip the trailing newline
+            while (end > 0) {
+                raf.seek(end - 1);
+                if (raf.read() != '\n') break;
+                end--;
+            }
+            long start = end;
+            ByteArrayOutputStream reversed = new ByteArrayOutputStream();
+            while (start > 0) {
+                raf.seek(start - 1);
+                int b = raf.read();
+                if (b == '\n') break;
+                reversed.write(b);
+                start--;
+            }
+            if (start == end) return none;
+
+            byte[] line = reversed.toByteArray();
+            for (int i = 0, j = line.length - 1; i < j; i++, j--) {
+                byte b = line[i];
+                line[i] = line[j];
+                line[j] = b;
+            }
+            String text = new String(line, StandardCharsets.UTF_8);
+            JsonObject row = JsonParser.parseString(text).getAsJsonObject();
+            // Rows are rewritten from here with their newline, so a missing one is added back
+            return new LastRow(text + "\n", row.has("commit") ? row.get("commit").getAsString() : "",
+                row.has("date") ? Instant.parse(row.get("date").getAsString()) : null, start);
+        }
+    }
+
+    /** The commits of all rows, reading only the {@code commit} member of each line. */
+    private Set<String> readCommits() throws IOException {
+        Set<String> commits = new HashSet<>();
+        if (!Files.exists(file)) return commits;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.isBlank()) continue;
+                try (JsonReader json = new JsonReader(new StringReader(line))) {
+                    json.beginObject();
+                    while (json.hasNext()) {
+                        if (json.nextName().equals("commit")) {
+                            commits.add(json.nextString());
+                            break;
+                        }
+                        json.skipValue();
+                    }
+                }
+            }
+        }
+        return commits;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3 || !args[0].equals("rebuild")) {
+            System.err.println("Usage: ViolationRollup rebuild <snapshotDir> <rollupFile>");
+            System.exit(1);
+        }
+        rebuild(Path.of(args[1]), Path.of(args[2]));
+    }
+
+    /**
+     * Replaces {@code rollupFile} by the rows of the snapshots in {@code snapshotDir}, one per
+     * commit; snapshots of a commit already seen are skipped.
+     */
+    static void rebuild(Path snapshotDir, Path rollupFile) throws IOException {
+        List<Path> snapshots;
+        try (Stream<Path> files = Files.list(snapshotDir)) {
+            snapshots = files.filter(p -> p.getFileName().toString().matches("dtoViolations_.*\\.json"))
+                .sorted()
+                .toList();
+        }
+
+        Path tmp = rollupFile.resolveSibling(rollupFile.getFileName() + ".tmp");
+        Files.deleteIfExists(tmp);
+        ViolationRollup rollup = new ViolationRollup(tmp, null);
+        int rows = 0;
+        for (Path snapshot : snapshots) {
+            SnapshotCounts counts = readCounts(snapshot);
+            if (counts.commit == null || counts.date == null) {
+                System.err.println("WARNING: Skipping " + snapshot.getFileName() + ", it has no commit metadata");
+                continue;
+            }
+            if (rollup.append(counts.commit, GitRepository.utc(counts.date), counts.modules)) rows++;
+        }
+        if (rows == 0) Files.writeString(tmp, "");
+        Files.move(tmp, rollupFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        System.out.println("Rebuilt " + rollupFile + " with " + rows + " rows from " + snapshots.size() + " snapshots");
+    }
+
+    private static class SnapshotCounts {
+        String commit;
+        String date;
+        Map<String, int[]> modules = new LinkedHashMap<>();
+    }
+
+    /** Streams the commit, its date and the module counts out of a snapshot, skipping everything else. */
+    private static SnapshotCounts readCounts(Path snapshot) throws IOException {
+        SnapshotCounts counts = new SnapshotCounts();
+        try (JsonReader json = new JsonReader(new BufferedReader(new InputStreamReader(
+                Files.newInputStream(snapshot), StandardCharsets.UTF_8), 1 << 16))) {
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "metadata" -> readMetadata(json, counts);
+                    case "dtoViolations" -> readViolations(json, counts);
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+        }
+        return counts;
+    }
+
+    private static void readMetadata(JsonReader json, SnapshotCounts counts) throws IOException {
+        json.beginObject();
+        while (json.hasNext()) {
+            if (!json.nextName().equals("artemis") || json.peek() != JsonToken.BEGIN_OBJECT) {
+                json.skipValue();
+                continue;
+            }
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "commitHash" -> counts.commit = json.nextString();
+                    case "commitDate" -> counts.date = json.nextString();
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+        }
+        json.endObject();
+    }
+
+    private static void readViolations(JsonReader json, SnapshotCounts counts) throws IOException {
+        json.beginObject();
+        while (json.hasNext()) {
+            if (!json.nextName().equals("modules")) {
+                json.skipValue();
+                continue;
+            }
+            json.beginObject();
+            while (json.hasNext()) {
+                String module = json.nextName();
+                int[] moduleCounts = new int[3];
+                json.beginObject();
+                while (json.hasNext()) {
+                    switch (json.nextName()) {
+                        case "entityReturnViolations" -> moduleCounts[0] = json.nextInt();
+                        case "entityInputViolations" -> moduleCounts[1] = json.nextInt();
+                        case "dtoEntityFieldViolations" -> moduleCounts[2] = json.nextInt();
+                        default -> json.skipValue();
+                    }
+                }
+                json.endObject();
+                counts.modules.put(module, moduleCounts);
+            }
+            json.endObject();
+        }
+        json.endObject();
+    }
+}
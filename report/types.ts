@@ -57,6 +57,8 @@ export interface EntityReturnViolation {
   endpoint: string;
   returnType: string;
   entityClass: string;
+  /** Hops from the referenced type to the entity ("FooDTO.bar", "SpecialQuiz extends"); absent if referenced directly */
+  path?: string[];
   file: string;
 }
 
@@ -71,6 +73,8 @@ export interface EntityInputViolation {
   parameterType: string;
   annotationType: string;
   entityClass: string;
+  /** Hops from the referenced type to the entity ("FooDTO.bar", "SpecialQuiz extends"); absent if referenced directly */
+  path?: string[];
   file: string;
 }
 
@@ -82,19 +86,64 @@ export interface DtoEntityFieldViolation {
   fieldName: string;
   fieldType: string;
   entityClass: string;
+  /** Hops from the referenced type to the entity ("FooDTO.bar", "SpecialQuiz extends"); absent if referenced directly */
+  path?: string[];
   file: string;
 }
 
 /**
- * DTO Violation statistics per module
+ * Violation counts of the three DTO checks
+ */
+export interface DtoViolationCounts {
+  entityReturnViolations: number;
+  entityInputViolations: number;
+  dtoEntityFieldViolations: number;
+}
+
+/**
+ * Violations reaching an entity through other types (DTO fields, superclasses), all with a path
+ */
+export interface DtoTransitiveViolations extends DtoViolationCounts {
+  entityReturnDetails?: EntityReturnViolation[];
+  entityInputDetails?: EntityInputViolation[];
+  dtoEntityFieldDetails?: DtoEntityFieldViolation[];
+}
+
+/**
+ * DTO Violation statistics per module; counts and details cover direct violations only
  */
 export interface DtoModuleViolations {
   entityReturnViolations: number;
   entityInputViolations: number;
   dtoEntityFieldViolations: number;
+  /** Maximum counts enforced by the module's ArchUnit test, if it has one */
+  thresholds?: DtoViolationCounts;
   entityReturnDetails?: EntityReturnViolation[];
   entityInputDetails?: EntityInputViolation[];
   dtoEntityFieldDetails?: DtoEntityFieldViolation[];
+  /** Transitive violations, counted apart from the direct ones above; absent if there are none */
+  transitive?: DtoTransitiveViolations;
+}
+
+/**
+ * Finding of an additional architecture rule (controller-repository-access etc.)
+ */
+export interface RuleFinding {
+  /** Declaring type, e.g. the controller */
+  type: string;
+  /** Field or method the finding is about */
+  member: string;
+  detail: string;
+  file: string;
+  line: number;
+}
+
+/**
+ * Findings of one rule, by module
+ */
+export interface RuleFindings {
+  total: number;
+  modules: Record<string, RuleFinding[]>;
 }
 
 /**
@@ -102,11 +151,13 @@ export interface DtoModuleViolations {
  */
 export interface DtoViolationsData {
   modules: Record<string, DtoModuleViolations>;
-  totals: {
-    entityReturnViolations: number;
-    entityInputViolations: number;
-    dtoEntityFieldViolations: number;
-  };
+  totals: DtoViolationCounts;
+  /** Sum of the ArchUnit thresholds of all modules that have one */
+  thresholds?: DtoViolationCounts;
+  /** Sum of the modules' transitive violations, not included in totals */
+  transitiveTotals?: DtoViolationCounts;
+  /** Findings by rule id; only rules that found anything are present */
+  rules?: Record<string, RuleFindings>;
 }
 
 /**